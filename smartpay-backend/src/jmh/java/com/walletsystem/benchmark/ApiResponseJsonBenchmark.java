@@ -0,0 +1,73 @@
+package com.walletsystem.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.walletsystem.model.Transaction;
+import com.walletsystem.model.dto.ApiResponse;
+import com.walletsystem.utils.IdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ApiResponse serialization with the application's ObjectMapper, as the controllers return it
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApiResponseJsonBenchmark {
+
+    @Param({"1", "50", "1000"})
+    public int transactions;
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+    private ApiResponse<Transaction> single;
+    private ApiResponse<List<Transaction>> list;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start();
+        objectMapper = context.getBean(ObjectMapper.class);
+        List<Transaction> history = new ArrayList<>(transactions);
+        for (int i = 0; i < transactions; i++) {
+            history.add(new Transaction(IdGenerator.generateTransactionId(), "bench-sender", "bench-receiver",
+                    12_345 + i, Transaction.TransactionType.TRANSFER, "Fund transfer"));
+        }
+        single = ApiResponse.success("Transfer completed successfully", history.get(0));
+        list = ApiResponse.success("Transaction history retrieved successfully", history);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] transaction() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(single);
+    }
+
+    @Benchmark
+    public byte[] history() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(list);
+    }
+}
@@ -0,0 +1,88 @@
+package com.walletsystem.benchmark;
+
+import com.walletsystem.model.dto.TransferRequest;
+import com.walletsystem.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WalletService.getWalletSnapshot on a few hot wallets while a writer keeps
+ * transferring between the same wallets
+ * Reads take no lock, so read throughput should grow with the reader count
+ * (change with -tg, e.g. -tg 7,1) and hold up while the writer runs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Group)
+public class BalanceReadBenchmark {
+
+    private static final int HOT_WALLETS = 4;
+
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+
+    @Setup(Level.Iteration)
+    public void start() {
+        context = BenchmarkContext.start();
+        walletService = context.getBean(WalletService.class);
+        for (int i = 0; i < HOT_WALLETS; i++) {
+            walletService.getWalletBalance("bench-hot-" + i);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom(42);
+
+        int next() {
+            return random.nextInt(HOT_WALLETS);
+        }
+    }
+
+    @Benchmark
+    @Group("readWhileTransferring")
+    @GroupThreads(3)
+    public long readBalance(Cursor cursor) {
+        return walletService.getWalletSnapshot("bench-hot-" + cursor.next()).getVersion();
+    }
+
+    @Benchmark
+    @Group("readWhileTransferring")
+    @GroupThreads(1)
+    public void transfer(Cursor cursor, Blackhole blackhole) {
+        int from = cursor.next();
+        int to = (from + 1) % HOT_WALLETS;
+        try {
+            blackhole.consume(walletService.transferFunds(
+                    new TransferRequest("bench-hot-" + from, "bench-hot-" + to, 1, null)));
+        } catch (RuntimeException e) {
+            // A random walk can briefly drain a hot wallet
+            blackhole.consume(e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.walletsystem.benchmark;
+
+import com.walletsystem.DigitalWalletApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.stream.Stream;
+
+/**
+ * Starts the real service wiring without the web layer or disk persistence,
+ * so benchmarks measure in-memory service cost only
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... extraProperties) {
+        return run(Stream.concat(Stream.of(
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN",
+                "wallet.journal.enabled=false",
+                "wallet.snapshot.enabled=false",
+                "wallet.transfer.async.enabled=false",
+                "wallet.session.max-sessions=10000000"), Stream.of(extraProperties)).toArray(String[]::new));
+    }
+
+    /**
+     * Start with exactly the given properties on top of application.properties
+     * They are passed as command-line arguments: builder default properties rank below
+     * application.properties and would be silently ignored.
+     */
+    static ConfigurableApplicationContext run(String... properties) {
+        return new SpringApplicationBuilder(DigitalWalletApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(Stream.of(properties).map(property -> "--" + property).toArray(String[]::new));
+    }
+}
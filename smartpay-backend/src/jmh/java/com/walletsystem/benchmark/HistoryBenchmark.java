@@ -0,0 +1,80 @@
+package com.walletsystem.benchmark;
+
+import com.walletsystem.model.Transaction;
+import com.walletsystem.model.dto.TransactionPage;
+import com.walletsystem.service.TransactionService;
+import com.walletsystem.utils.IdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TransactionService history reads at several history sizes: the full list and the first page
+ * Defaults to 4 threads; override with -t
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@Threads(4)
+@State(Scope.Benchmark)
+public class HistoryBenchmark {
+
+    private static final String USER = "bench-history-user";
+
+    @Param({"10", "1000", "100000"})
+    public int historySize;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start();
+        transactionService = context.getBean(TransactionService.class);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < historySize; i++) {
+            Transaction transaction = new Transaction(
+                    IdGenerator.generateTransactionId(),
+                    i % 2 == 0 ? USER : "bench-peer-" + (i % 100),
+                    i % 2 == 0 ? "bench-peer-" + (i % 100) : USER,
+                    1_00,
+                    Transaction.TransactionType.TRANSFER,
+                    "Benchmark transfer");
+            transaction.setTimestamp(now.minusSeconds(i));
+            transactionService.addTransaction(transaction);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Transaction> fullHistory() {
+        return transactionService.getTransactionHistory(USER);
+    }
+
+    @Benchmark
+    public TransactionPage firstPage() {
+        return transactionService.getTransactionHistoryPage(USER, null, 50);
+    }
+}
@@ -0,0 +1,529 @@
+package com.walletsystem.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model HTTP load generator for a running wallet backend
+ * Requests arrive on a fixed schedule (uniform or Poisson) whether or not earlier
+ * ones have completed, so a slow server cannot slow the load down. Response time is
+ * measured from each request's intended start, which corrects for coordinated
+ * omission; service time from the actual send is recorded alongside for contrast.
+ *
+ * Usage: LoadGenerator [--url=http://localhost:8080] [--rate=500] [--duration=60]
+ *        [--warmup=10] [--users=200] [--arrivals=poisson|uniform] [--seed=42]
+ *        [--mix=register:1,login:4,balance:30,addFunds:10,transfer:30,history:24,admin:1]
+ *        [--max-in-flight=10000] [--out=target/load] [--baseline=summary.json] [--threshold=10]
+ *
+ * Writes per-endpoint .hgrm percentile distributions and summary.json to --out. With
+ * --baseline, exits 1 when an endpoint's p99 is worse than the baseline by more than
+ * --threshold percent.
+ */
+public final class LoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final double[] REPORTED_PERCENTILES = {50, 90, 99, 99.9, 99.99};
+    private static final String PASSWORD = "password123";
+    private static final String[] ADMIN_PATHS = {
+            "/api/user/all/stream", "/api/wallet/all/stream", "/api/transaction/all/stream"
+    };
+
+    enum Endpoint {
+        REGISTER("register"),
+        LOGIN("login"),
+        BALANCE("balance"),
+        ADD_FUNDS("addFunds"),
+        TRANSFER("transfer"),
+        HISTORY("history"),
+        ADMIN("admin");
+
+        final String key;
+
+        Endpoint(String key) {
+            this.key = key;
+        }
+
+        static Endpoint of(String key) {
+            for (Endpoint endpoint : values()) {
+                if (endpoint.key.equalsIgnoreCase(key)) {
+                    return endpoint;
+                }
+            }
+            throw new IllegalArgumentException("Unknown endpoint in mix: " + key);
+        }
+    }
+
+    private final Options options;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SplittableRandom random;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final List<LoadUser> users = new CopyOnWriteArrayList<>();
+    private final Map<String, LoadUser> usersById = new ConcurrentHashMap<>();
+    private final AtomicInteger registrations = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+    private volatile long measureFromNanos;
+
+    private LoadGenerator(Options options) {
+        this.options = options;
+        this.random = new SplittableRandom(options.seed);
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()),
+                        r -> {
+                            Thread thread = new Thread(r, "load-client");
+                            thread.setDaemon(true);
+                            return thread;
+                        }))
+                .build();
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new Stats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.exit(execute(args).status);
+    }
+
+    /**
+     * One complete run: register users, offer the load, report; summary.json's content is returned
+     */
+    static Result execute(String... args) throws Exception {
+        Options options = Options.parse(args);
+        LoadGenerator generator = new LoadGenerator(options);
+        generator.createUsers();
+        generator.run();
+        return generator.report();
+    }
+
+    record Result(int status, Map<String, Object> summary) {
+    }
+
+    /**
+     * Register the initial user pool, closed-loop and outside the measurement
+     */
+    private void createUsers() {
+        System.out.printf("Registering %d users against %s%n", options.users, options.url);
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        for (int i = 0; i < options.users; i++) {
+            pending.add(client.sendAsync(registerRequest(), HttpResponse.BodyHandlers.ofByteArray())
+                    .thenAccept(this::addRegisteredUser));
+            if (pending.size() == 64) {
+                CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+                pending.clear();
+            }
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        if (users.size() < 2) {
+            throw new IllegalStateException("Could not register users; is the application running at " + options.url + "?");
+        }
+    }
+
+    /**
+     * Pace arrivals on the schedule and fire each request without waiting for the last
+     */
+    private void run() throws InterruptedException {
+        long start = System.nanoTime();
+        measureFromNanos = start + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+        long end = measureFromNanos + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+        double meanIntervalNanos = 1e9 / options.rate;
+        System.out.printf("Offering %.0f req/s (%s arrivals) for %ds after %ds warmup%n",
+                options.rate, options.arrivals, options.durationSeconds, options.warmupSeconds);
+
+        long intended = start;
+        long nextProgress = start + TimeUnit.SECONDS.toNanos(5);
+        while (intended < end) {
+            long wait = intended - System.nanoTime();
+            if (wait > 50_000) {
+                LockSupport.parkNanos(wait - 20_000);
+                continue;
+            }
+            while (System.nanoTime() < intended) {
+                Thread.onSpinWait();
+            }
+            fire(options.pick(random), intended);
+
+            double interval = options.poisson
+                    ? -Math.log(1.0 - random.nextDouble()) * meanIntervalNanos
+                    : meanIntervalNanos;
+            intended += (long) interval;
+            if (intended >= nextProgress) {
+                System.out.printf("  %3ds  in flight %d%n",
+                        TimeUnit.NANOSECONDS.toSeconds(intended - start), inFlight.get());
+                nextProgress += TimeUnit.SECONDS.toNanos(5);
+            }
+        }
+
+        long drainUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.timeoutSeconds);
+        while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void fire(Endpoint endpoint, long intendedNanos) {
+        Stats endpointStats = stats.get(endpoint);
+        boolean measured = intendedNanos >= measureFromNanos;
+        if (inFlight.get() >= options.maxInFlight) {
+            // The client itself is saturated; count it rather than queue without bound
+            if (measured) {
+                endpointStats.dropped.increment();
+            }
+            return;
+        }
+
+        HttpRequest request = request(endpoint);
+        inFlight.incrementAndGet();
+        long sentNanos = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, failure) -> {
+            long now = System.nanoTime();
+            inFlight.decrementAndGet();
+            if (measured) {
+                endpointStats.record(now - intendedNanos, now - sentNanos, response, failure);
+            }
+            if (response != null && response.statusCode() / 100 == 2) {
+                if (endpoint == Endpoint.REGISTER) {
+                    addRegisteredUser(response);
+                } else if (endpoint == Endpoint.LOGIN) {
+                    refreshToken(response);
+                }
+            }
+        });
+    }
+
+    private HttpRequest request(Endpoint endpoint) {
+        int userCount = users.size();
+        int index = random.nextInt(userCount);
+        LoadUser user = users.get(index);
+        switch (endpoint) {
+            case REGISTER:
+                return registerRequest();
+            case LOGIN:
+                return post("/api/user/login", null,
+                        "{\"username\":\"" + user.username + "\",\"password\":\"" + PASSWORD + "\"}");
+            case BALANCE:
+                return get("/api/wallet/balance/" + user.id);
+            case ADD_FUNDS:
+                return post("/api/wallet/addFunds?amount=" + amount(10_00, 100_00), user.token, null);
+            case TRANSFER:
+                LoadUser receiver = users.get((index + 1 + random.nextInt(userCount - 1)) % userCount);
+                return post("/api/wallet/transfer", user.token, "{\"senderId\":\"" + user.id
+                        + "\",\"receiverId\":\"" + receiver.id + "\",\"amount\":" + amount(1, 5_00)
+                        + ",\"description\":\"Load test transfer\"}");
+            case HISTORY:
+                return get("/api/transaction/history/" + user.id + "?limit=20");
+            case ADMIN:
+                return get(ADMIN_PATHS[random.nextInt(ADMIN_PATHS.length)]);
+            default:
+                throw new IllegalStateException("Unhandled endpoint " + endpoint);
+        }
+    }
+
+    private HttpRequest registerRequest() {
+        String username = "load-" + runId + "-" + registrations.getAndIncrement();
+        return post("/api/user/register", null, "{\"username\":\"" + username + "\",\"email\":\""
+                + username + "@example.com\",\"password\":\"" + PASSWORD + "\"}");
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(options.url + path))
+                .timeout(Duration.ofSeconds(options.timeoutSeconds))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, String token, String json) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(options.url + path))
+                .timeout(Duration.ofSeconds(options.timeoutSeconds));
+        if (token != null) {
+            builder.header("Authorization", token);
+        }
+        if (json == null) {
+            return builder.POST(HttpRequest.BodyPublishers.noBody()).build();
+        }
+        return builder.header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private String amount(int minMinor, int maxMinor) {
+        int minor = minMinor + random.nextInt(maxMinor - minMinor + 1);
+        return (minor / 100) + "." + String.format("%02d", minor % 100);
+    }
+
+    private void addRegisteredUser(HttpResponse<byte[]> response) {
+        JsonNode data = data(response);
+        if (data != null) {
+            LoadUser user = new LoadUser(data.path("id").asText(), data.path("username").asText(),
+                    data.path("token").asText());
+            usersById.put(user.id, user);
+            users.add(user);
+        }
+    }
+
+    private void refreshToken(HttpResponse<byte[]> response) {
+        JsonNode data = data(response);
+        if (data == null) {
+            return;
+        }
+        LoadUser user = usersById.get(data.path("id").asText());
+        if (user != null) {
+            user.token = data.path("token").asText();
+        }
+    }
+
+    private JsonNode data(HttpResponse<byte[]> response) {
+        if (response.statusCode() / 100 != 2) {
+            return null;
+        }
+        try {
+            JsonNode data = objectMapper.readTree(response.body()).path("data");
+            return data.hasNonNull("id") && data.hasNonNull("token") ? data : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Print the per-endpoint table, write histograms and summary.json, and compare with a baseline
+     */
+    private Result report() throws IOException {
+        File out = new File(options.out);
+        Files.createDirectories(out.toPath());
+
+        System.out.println();
+        System.out.printf("%-10s %9s %9s %7s %7s %7s %9s %9s %9s %9s %9s %9s%n", "Endpoint", "Count", "Req/s",
+                "4xx", "5xx", "Failed", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Max ms", "Svc p99");
+        Map<String, Object> summary = new LinkedHashMap<>();
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        for (Map.Entry<Endpoint, Stats> entry : stats.entrySet()) {
+            Stats s = entry.getValue();
+            Histogram response = s.responseTime.copy();
+            Histogram service = s.serviceTime.copy();
+            total.add(response);
+            if (response.getTotalCount() == 0 && s.dropped.sum() == 0) {
+                continue;
+            }
+            printRow(entry.getKey().key, response, service, s);
+            writeDistribution(new File(out, entry.getKey().key + ".hgrm"), response);
+            writeDistribution(new File(out, entry.getKey().key + "-service.hgrm"), service);
+            summary.put(entry.getKey().key, summaryOf(response, s));
+        }
+        writeDistribution(new File(out, "all.hgrm"), total);
+        summary.put("all", summaryOf(total, null));
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File(out, "summary.json"), summary);
+        System.out.printf("%nResponse time is measured from the intended start (coordinated omission corrected); "
+                + "Svc p99 from the actual send.%nReports written to %s%n", out.getAbsolutePath());
+
+        return new Result(options.baseline == null ? 0 : compare(summary), summary);
+    }
+
+    private void printRow(String name, Histogram response, Histogram service, Stats s) {
+        System.out.printf(Locale.ROOT, "%-10s %9d %9.1f %7d %7d %7d %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, response.getTotalCount(), response.getTotalCount() / (double) options.durationSeconds,
+                s.clientErrors.sum(), s.serverErrors.sum(), s.failures.sum() + s.dropped.sum(),
+                millis(response.getValueAtPercentile(50)), millis(response.getValueAtPercentile(90)),
+                millis(response.getValueAtPercentile(99)), millis(response.getValueAtPercentile(99.9)),
+                millis(response.getMaxValue()), millis(service.getValueAtPercentile(99)));
+    }
+
+    private Map<String, Object> summaryOf(Histogram histogram, Stats s) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("count", histogram.getTotalCount());
+        row.put("ratePerSecond", histogram.getTotalCount() / (double) options.durationSeconds);
+        if (s != null) {
+            row.put("clientErrors", s.clientErrors.sum());
+            row.put("serverErrors", s.serverErrors.sum());
+            row.put("failures", s.failures.sum());
+            row.put("dropped", s.dropped.sum());
+        }
+        for (double percentile : REPORTED_PERCENTILES) {
+            row.put("p" + (percentile == (long) percentile ? Long.toString((long) percentile)
+                    : Double.toString(percentile)) + "Ms", millis(histogram.getValueAtPercentile(percentile)));
+        }
+        row.put("maxMs", millis(histogram.getMaxValue()));
+        return row;
+    }
+
+    private int compare(Map<String, Object> current) throws IOException {
+        JsonNode baseline = objectMapper.readTree(new File(options.baseline));
+        int regressions = 0;
+        System.out.printf("%nAgainst baseline %s (p99, threshold %.1f%%)%n", options.baseline, options.threshold);
+        for (Map.Entry<String, Object> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                continue;
+            }
+            double was = before.path("p99Ms").asDouble();
+            double now = (Double) ((Map<?, ?>) entry.getValue()).get("p99Ms");
+            double change = was == 0 ? 0 : (now - was) / was * 100.0;
+            boolean regressed = change > options.threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf(Locale.ROOT, "%-10s %9.2f -> %9.2f ms %+8.1f%%%s%n", entry.getKey(), was, now, change,
+                    regressed ? "  REGRESSION" : "");
+        }
+        return regressions > 0 ? 1 : 0;
+    }
+
+    private static void writeDistribution(File file, Histogram histogram) throws IOException {
+        try (PrintStream stream = new PrintStream(file)) {
+            // Values are recorded in microseconds; report in milliseconds
+            histogram.outputPercentileDistribution(stream, 1000.0);
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static final class LoadUser {
+        final String id;
+        final String username;
+        volatile String token;
+
+        LoadUser(String id, String username, String token) {
+            this.id = id;
+            this.username = username;
+            this.token = token;
+        }
+    }
+
+    private static final class Stats {
+        final Histogram responseTime = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final Histogram serviceTime = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final LongAdder clientErrors = new LongAdder();
+        final LongAdder serverErrors = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+
+        void record(long responseNanos, long serviceNanos, HttpResponse<?> response, Throwable failure) {
+            if (failure != null) {
+                // Timeouts and connection errors still cost the caller their full wait
+                failures.increment();
+            } else if (response.statusCode() >= 500) {
+                serverErrors.increment();
+            } else if (response.statusCode() >= 400) {
+                clientErrors.increment();
+            }
+            responseTime.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(responseNanos)));
+            serviceTime.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(serviceNanos)));
+        }
+    }
+
+    private static final class Options {
+        String url = "http://localhost:8080";
+        double rate = 500;
+        int durationSeconds = 60;
+        int warmupSeconds = 10;
+        int users = 200;
+        boolean poisson = true;
+        String arrivals = "poisson";
+        long seed = 42;
+        int maxInFlight = 10_000;
+        int timeoutSeconds = 30;
+        String out = "target/load";
+        String baseline;
+        double threshold = 10;
+        final Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        Endpoint[] cumulative;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            String mix = "register:1,login:4,balance:30,addFunds:10,transfer:30,history:24,admin:1";
+            for (String arg : args) {
+                if (arg.isBlank()) {
+                    continue;
+                }
+                int equals = arg.indexOf('=');
+                if (!arg.startsWith("--") || equals < 0) {
+                    throw new IllegalArgumentException("Expected --name=value, got " + arg);
+                }
+                String name = arg.substring(2, equals);
+                String value = arg.substring(equals + 1);
+                switch (name) {
+                    case "url" -> options.url = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                    case "rate" -> options.rate = Double.parseDouble(value);
+                    case "duration" -> options.durationSeconds = Integer.parseInt(value);
+                    case "warmup" -> options.warmupSeconds = Integer.parseInt(value);
+                    case "users" -> options.users = Integer.parseInt(value);
+                    case "arrivals" -> {
+                        options.arrivals = value.toLowerCase(Locale.ROOT);
+                        options.poisson = !"uniform".equals(options.arrivals);
+                    }
+                    case "seed" -> options.seed = Long.parseLong(value);
+                    case "max-in-flight" -> options.maxInFlight = Integer.parseInt(value);
+                    case "timeout" -> options.timeoutSeconds = Integer.parseInt(value);
+                    case "mix" -> mix = value;
+                    case "out" -> options.out = value;
+                    case "baseline" -> options.baseline = value.isBlank() ? null : value;
+                    case "threshold" -> options.threshold = Double.parseDouble(value);
+                    default -> throw new IllegalArgumentException("Unknown option --" + name);
+                }
+            }
+            if (options.rate <= 0 || options.durationSeconds <= 0 || options.users < 2) {
+                throw new IllegalArgumentException("rate and duration must be positive and users at least 2");
+            }
+            options.parseMix(mix);
+            return options;
+        }
+
+        /**
+         * Weights such as "balance:30,transfer:30" become a lookup table with one slot per unit of weight
+         */
+        private void parseMix(String spec) {
+            int totalWeight = 0;
+            for (String part : spec.split(",")) {
+                String[] pair = part.trim().split(":");
+                int weight = Integer.parseInt(pair[1].trim());
+                if (weight > 0) {
+                    mix.merge(Endpoint.of(pair[0].trim()), weight, Integer::sum);
+                    totalWeight += weight;
+                }
+            }
+            if (totalWeight == 0) {
+                throw new IllegalArgumentException("Workload mix is empty");
+            }
+            List<Endpoint> slots = new ArrayList<>(totalWeight);
+            mix.forEach((endpoint, weight) -> {
+                for (int i = 0; i < weight; i++) {
+                    slots.add(endpoint);
+                }
+            });
+            cumulative = slots.toArray(new Endpoint[0]);
+        }
+
+        Endpoint pick(SplittableRandom random) {
+            return cumulative[random.nextInt(cumulative.length)];
+        }
+    }
+}
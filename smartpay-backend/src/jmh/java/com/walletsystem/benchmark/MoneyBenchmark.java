@@ -0,0 +1,115 @@
+package com.walletsystem.benchmark;
+
+import com.walletsystem.model.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance arithmetic in long minor units against the BigDecimal it replaced and a double in major units
+ * Setup checks the results before anything is timed: BigDecimal must match long exactly after a million
+ * operations, and the double's drift over the same run is reported (it must still round to the right cent).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+
+    private static final int AMOUNTS = 1024;
+    // Passes over the amounts for the drift check, about a million operations
+    private static final int DRIFT_PASSES = 1000;
+    private static final long START_MINOR = 500_000;
+
+    private final long[] minor = new long[AMOUNTS];
+    private final BigDecimal[] decimal = new BigDecimal[AMOUNTS];
+    private final double[] major = new double[AMOUNTS];
+
+    @Setup(Level.Trial)
+    public void fill() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < AMOUNTS; i++) {
+            minor[i] = random.nextLong(1, 1_000_000);
+            decimal[i] = Money.toDecimal(minor[i]);
+            major[i] = minor[i] / 100.0;
+        }
+        checkDrift();
+    }
+
+    private void checkDrift() {
+        long exact = START_MINOR;
+        BigDecimal decimalBalance = Money.toDecimal(START_MINOR);
+        double doubleBalance = START_MINOR / 100.0;
+        for (int pass = 0; pass < DRIFT_PASSES; pass++) {
+            exact = applyMinor(exact);
+            decimalBalance = applyDecimal(decimalBalance);
+            doubleBalance = applyDouble(doubleBalance);
+        }
+        if (decimalBalance.compareTo(Money.toDecimal(exact)) != 0) {
+            throw new IllegalStateException("BigDecimal balance " + decimalBalance + " differs from " + exact);
+        }
+        double drift = doubleBalance - exact / 100.0;
+        if (Math.round(doubleBalance * 100) != exact) {
+            throw new IllegalStateException("double balance " + doubleBalance + " no longer rounds to " + exact);
+        }
+        System.out.printf("double drift after %d operations: %.3e major units (balance %s, exact %d minor units)%n",
+                DRIFT_PASSES * AMOUNTS, drift, doubleBalance, exact);
+    }
+
+    /**
+     * Apply every amount as a debit when covered, otherwise as a credit
+     */
+    @Benchmark
+    public long minorUnits() {
+        return applyMinor(START_MINOR);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        return applyDecimal(BigDecimal.valueOf(START_MINOR, 2));
+    }
+
+    @Benchmark
+    public double doubleMajorUnits() {
+        return applyDouble(START_MINOR / 100.0);
+    }
+
+    private long applyMinor(long balance) {
+        for (long amount : minor) {
+            balance = Money.compare(balance, amount) >= 0
+                    ? Money.subtract(balance, amount)
+                    : Money.add(balance, amount);
+        }
+        return balance;
+    }
+
+    private BigDecimal applyDecimal(BigDecimal balance) {
+        for (BigDecimal amount : decimal) {
+            balance = balance.compareTo(amount) >= 0
+                    ? balance.subtract(amount)
+                    : balance.add(amount);
+        }
+        return balance;
+    }
+
+    private double applyDouble(double balance) {
+        for (double amount : major) {
+            balance = balance >= amount ? balance - amount : balance + amount;
+        }
+        return balance;
+    }
+}
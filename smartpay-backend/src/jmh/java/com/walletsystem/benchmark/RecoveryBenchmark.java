@@ -0,0 +1,183 @@
+package com.walletsystem.benchmark;
+
+import com.walletsystem.model.Wallet;
+import com.walletsystem.model.dto.DatasetRequest;
+import com.walletsystem.model.dto.TransferRequest;
+import com.walletsystem.persistence.JournalRecovery;
+import com.walletsystem.service.DatasetService;
+import com.walletsystem.service.TransactionService;
+import com.walletsystem.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Restart time with a large store: load a snapshot of generated transactions, then replay a
+ * journal tail of live transfers written after it
+ * Every restart is checked against the state before shutdown: the transaction count and every
+ * wallet balance must match exactly, or the iteration fails.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g", "-XX:MaxDirectMemorySize=2g"})
+@State(Scope.Benchmark)
+public class RecoveryBenchmark {
+
+    private static final String INITIAL_SNAPSHOT = "snapshot-0000000000000000.snap";
+
+    @Param({"10000000"})
+    public long transactions;
+
+    @Param({"100000"})
+    public int users;
+
+    // Live transfers journaled after the snapshot, replayed on every restart
+    @Param({"100000"})
+    public int tailTransfers;
+
+    @Param({"OFF_HEAP"})
+    public String store;
+
+    private Path dir;
+    private long expectedTransactions;
+    private Map<String, Long> expectedBalances;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void prepare() throws IOException {
+        dir = Files.createTempDirectory("recovery-bench");
+
+        // The generated dataset becomes the snapshot a fresh node boots from
+        ConfigurableApplicationContext generator = BenchmarkContext.start("wallet.dataset.dir=" + dir.getParent());
+        try {
+            DatasetRequest request = new DatasetRequest();
+            request.setUsers(users);
+            request.setTransactions(transactions);
+            request.setTarget(DatasetRequest.Target.SNAPSHOT);
+            request.setDirectory(dir.getFileName().toString());
+            generator.getBean(DatasetService.class).generate(request);
+        } finally {
+            generator.close();
+        }
+
+        // Boot from it and journal a tail of transfers on top
+        ConfigurableApplicationContext live = start();
+        try {
+            WalletService walletService = live.getBean(WalletService.class);
+            List<String> userIds = walletService.streamAllWallets().map(Wallet::getUserId).collect(Collectors.toList());
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < tailTransfers; i++) {
+                String sender = userIds.get(random.nextInt(userIds.size()));
+                String receiver = userIds.get(random.nextInt(userIds.size()));
+                try {
+                    walletService.transferFunds(new TransferRequest(sender, receiver, 1 + random.nextLong(10_000), null));
+                } catch (RuntimeException e) {
+                    // Declined for funds; the balances stay as they were
+                }
+            }
+            expectedTransactions = live.getBean(TransactionService.class).streamAllTransactions().count();
+            expectedBalances = balances(walletService);
+        } finally {
+            live.close();
+        }
+        dropFinalSnapshots();
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext restart() {
+        context = start();
+        return context;
+    }
+
+    @TearDown(Level.Iteration)
+    public void verify() throws IOException {
+        try {
+            JournalRecovery recovery = context.getBean(JournalRecovery.class);
+            if (recovery.getReplayedRecords() == 0 && tailTransfers > 0) {
+                throw new IllegalStateException("Restart did not replay the journal tail");
+            }
+            long recovered = context.getBean(TransactionService.class).streamAllTransactions().count();
+            if (recovered != expectedTransactions) {
+                throw new IllegalStateException("Recovered " + recovered + " transactions, expected "
+                        + expectedTransactions);
+            }
+            Map<String, Long> balances = balances(context.getBean(WalletService.class));
+            if (!balances.equals(expectedBalances)) {
+                throw new IllegalStateException("Recovered wallet balances differ from those before the restart");
+            }
+        } finally {
+            context.close();
+            context = null;
+        }
+        dropFinalSnapshots();
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        return BenchmarkContext.run(
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN",
+                "wallet.journal.enabled=true",
+                "wallet.journal.dir=" + dir,
+                "wallet.journal.fsync=OS",
+                "wallet.snapshot.enabled=true",
+                "wallet.snapshot.interval-seconds=86400",
+                "wallet.snapshot.retain=2",
+                "wallet.transactions.store=" + store,
+                "wallet.transfer.async.enabled=false");
+    }
+
+    /**
+     * Remove the snapshot each shutdown takes, so every restart loads the initial snapshot
+     * and replays the whole journal tail instead of starting from a snapshot of everything
+     */
+    private void dropFinalSnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                String name = file.getFileName().toString();
+                if (name.startsWith("snapshot-") && !name.equals(INITIAL_SNAPSHOT)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private static Map<String, Long> balances(WalletService walletService) {
+        Map<String, Long> balances = new HashMap<>();
+        walletService.streamAllWallets().forEach(wallet -> balances.put(wallet.getUserId(), wallet.getBalance()));
+        return balances;
+    }
+}
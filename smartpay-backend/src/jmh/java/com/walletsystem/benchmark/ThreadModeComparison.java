@@ -0,0 +1,141 @@
+package com.walletsystem.benchmark;
+
+import com.walletsystem.DigitalWalletApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Transfer latency under the same open-model load for each request threading mode
+ * Starts the application in-process once per mode on a free port, drives it with
+ * LoadGenerator and prints p50/p99/p99.9 side by side:
+ *   PLATFORM  one Tomcat platform thread per request, transfers inline
+ *   ASYNC     the request thread is released and transfers run on the bounded worker pool
+ *   VIRTUAL   one virtual thread per request, transfers inline (Java 21+ only, skipped otherwise)
+ *
+ * Usage: ThreadModeComparison [--modes=PLATFORM,ASYNC,VIRTUAL] [--prime=30] [LoadGenerator options]
+ * --url and --out are set per mode. The default mix is transfer-heavy; results per mode go
+ * to target/load/modes/<mode>. All modes share one JVM, so every mode first gets an unreported
+ * --prime seconds of the same load before any is measured; otherwise whichever mode runs
+ * first is measured on a colder JIT.
+ */
+public final class ThreadModeComparison {
+
+    private static final String DEFAULT_MIX = "transfer:70,balance:30";
+
+    enum Mode {
+        PLATFORM("wallet.transfer.async.enabled=false", "spring.threads.virtual.enabled=false"),
+        ASYNC("wallet.transfer.async.enabled=true", "spring.threads.virtual.enabled=false"),
+        VIRTUAL("wallet.transfer.async.enabled=false", "spring.threads.virtual.enabled=true");
+
+        final String[] properties;
+
+        Mode(String... properties) {
+            this.properties = properties;
+        }
+
+        boolean supported() {
+            return this != VIRTUAL || Runtime.version().feature() >= 21;
+        }
+    }
+
+    private ThreadModeComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Mode> modes = List.of(Mode.values());
+        int primeSeconds = 30;
+        List<String> passed = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--prime=")) {
+                primeSeconds = Integer.parseInt(arg.substring("--prime=".length()));
+            } else if (arg.startsWith("--modes=")) {
+                modes = Stream.of(arg.substring("--modes=".length()).split(","))
+                        .map(name -> Mode.valueOf(name.trim().toUpperCase(Locale.ROOT)))
+                        .toList();
+            } else {
+                passed.add(arg);
+            }
+        }
+        boolean hasMix = passed.stream().anyMatch(arg -> arg.startsWith("--mix="));
+        if (!hasMix) {
+            passed.add("--mix=" + DEFAULT_MIX);
+        }
+        List<Mode> runnable = new ArrayList<>();
+        for (Mode mode : modes) {
+            if (mode.supported()) {
+                runnable.add(mode);
+            } else {
+                System.out.printf("%nSkipping %s: virtual threads need Java 21, running on %s%n",
+                        mode, Runtime.version());
+            }
+        }
+
+        // Prime every mode before measuring any, so no mode is measured on a colder JIT than another
+        if (primeSeconds > 0) {
+            for (Mode mode : runnable) {
+                System.out.printf("%n=== %s (priming, not reported) ===%n", mode);
+                drive(mode, passed, "-prime", "--duration=" + primeSeconds, "--warmup=0");
+            }
+        }
+        Map<Mode, Map<String, Object>> results = new LinkedHashMap<>();
+        for (Mode mode : runnable) {
+            System.out.printf("%n=== %s ===%n", mode);
+            results.put(mode, drive(mode, passed, ""));
+        }
+
+        System.out.printf("%n%-9s %-9s %9s %7s %7s %9s %9s %9s%n",
+                "Mode", "Endpoint", "Count", "4xx", "5xx", "p50 ms", "p99 ms", "p99.9 ms");
+        results.forEach((mode, summary) -> {
+            for (String endpoint : List.of("transfer", "all")) {
+                Object row = summary.get(endpoint);
+                if (row instanceof Map<?, ?> values) {
+                    System.out.printf(Locale.ROOT, "%-9s %-9s %9s %7s %7s %9.2f %9.2f %9.2f%n", mode, endpoint,
+                            values.get("count"), orDash(values.get("clientErrors")), orDash(values.get("serverErrors")),
+                            (Double) values.get("p50Ms"), (Double) values.get("p99Ms"), (Double) values.get("p99.9Ms"));
+                }
+            }
+        });
+        System.exit(0);
+    }
+
+    /**
+     * Start the application in the mode, run LoadGenerator against it and return its summary
+     */
+    private static Map<String, Object> drive(Mode mode, List<String> passed, String outSuffix, String... overrides)
+            throws Exception {
+        ConfigurableApplicationContext context = start(mode);
+        try {
+            List<String> loadArgs = new ArrayList<>(passed);
+            loadArgs.addAll(List.of(overrides));
+            loadArgs.add("--url=http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+            loadArgs.add("--out=target/load/modes/" + mode.name().toLowerCase(Locale.ROOT) + outSuffix);
+            return LoadGenerator.execute(loadArgs.toArray(new String[0])).summary();
+        } finally {
+            context.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext start(Mode mode) {
+        String[] common = {
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--wallet.journal.enabled=false",
+                "--wallet.snapshot.enabled=false"
+        };
+        String[] modeArgs = Stream.of(mode.properties).map(property -> "--" + property).toArray(String[]::new);
+        return new SpringApplicationBuilder(DigitalWalletApplication.class)
+                .run(Stream.concat(Stream.of(common), Stream.of(modeArgs)).toArray(String[]::new));
+    }
+
+    private static Object orDash(Object value) {
+        return value == null ? "-" : value;
+    }
+}
@@ -0,0 +1,73 @@
+package com.walletsystem.benchmark;
+
+import com.walletsystem.model.Transaction;
+import com.walletsystem.service.TransactionService;
+import com.walletsystem.utils.IdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TransactionService.addTransaction: indexing into the store, per-user, type and status indexes
+ * Defaults to 4 threads; override with -t
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@Threads(4)
+@State(Scope.Benchmark)
+public class TransactionBenchmark {
+
+    private static final int USERS = 1024;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private final String[] users = new String[USERS];
+
+    @Setup(Level.Iteration)
+    public void start() {
+        context = BenchmarkContext.start();
+        transactionService = context.getBean(TransactionService.class);
+        for (int i = 0; i < USERS; i++) {
+            users[i] = "bench-user-" + i;
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Counter {
+        int next;
+    }
+
+    @Benchmark
+    public Transaction addTransaction(Counter counter) {
+        int i = counter.next++;
+        Transaction transaction = new Transaction(
+                IdGenerator.generateTransactionId(),
+                users[i & (USERS - 1)],
+                users[(i * 7 + 1) & (USERS - 1)],
+                1_00,
+                Transaction.TransactionType.TRANSFER,
+                "Benchmark transfer");
+        return transactionService.addTransaction(transaction);
+    }
+}
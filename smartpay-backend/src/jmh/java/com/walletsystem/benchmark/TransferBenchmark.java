@@ -0,0 +1,160 @@
+package com.walletsystem.benchmark;
+
+import com.walletsystem.model.dto.TransferRequest;
+import com.walletsystem.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * WalletService.transferFunds under four contention patterns and both ledger modes
+ * UNCONTENDED: every thread moves money between its own two wallets
+ * CONTENDED: all threads move money between random pairs of four shared wallets
+ * HOT_RECEIVER: every thread pays one shared wallet, which pays it back
+ * RANDOM: all threads move money between uniformly random pairs of 10,000 wallets,
+ * so with N shards about (N-1)/N of SHARDED transfers cross shards
+ * Defaults to 4 threads; override with -t. A fresh context per iteration keeps
+ * the growing transaction store from skewing later iterations. shards=0 means one
+ * shard per core; set it to compare cross-shard handoffs on hosts with few cores.
+ * fsync=OFF runs without the journal; ALWAYS, INTERVAL or OS journal to a temporary
+ * directory under that policy, where SHARDED writes one frame per batch and DIRECT one per transfer.
+ * Scaling on disjoint pairs: run UNCONTENDED at -t 1 and at -t N (N up to the core count);
+ * with no shared wallets, N-thread throughput should approach N times the single-thread one.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@Threads(4)
+@State(Scope.Benchmark)
+public class TransferBenchmark {
+
+    private static final int SHARED_WALLETS = 4;
+    private static final int RANDOM_WALLETS = 10_000;
+
+    @Param({"UNCONTENDED", "CONTENDED", "HOT_RECEIVER", "RANDOM"})
+    public String scenario;
+
+    @Param({"DIRECT", "SHARDED"})
+    public String ledgerMode;
+
+    @Param({"0"})
+    public int shards;
+
+    @Param({"OFF"})
+    public String fsync;
+
+    private Path journalDir;
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+    private final AtomicInteger threadIds = new AtomicInteger();
+
+    @Setup(Level.Iteration)
+    public void start() throws IOException {
+        String mode = "wallet.ledger.mode=" + ledgerMode;
+        String shardCount = "wallet.ledger.shards=" + shards;
+        if ("OFF".equals(fsync)) {
+            context = BenchmarkContext.start(mode, shardCount);
+        } else {
+            journalDir = Files.createTempDirectory("transfer-bench");
+            context = BenchmarkContext.run(
+                    "spring.main.banner-mode=off",
+                    "logging.level.root=WARN",
+                    "wallet.journal.enabled=true",
+                    "wallet.journal.dir=" + journalDir,
+                    "wallet.journal.fsync=" + fsync,
+                    "wallet.snapshot.enabled=false",
+                    "wallet.transfer.async.enabled=false",
+                    mode,
+                    shardCount);
+        }
+        walletService = context.getBean(WalletService.class);
+        if ("RANDOM".equals(scenario)) {
+            // Create the wallets up front so the measurement does not include journaling new ones
+            for (int i = 0; i < RANDOM_WALLETS; i++) {
+                walletService.getWalletBalance("bench-random-" + i);
+            }
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() throws IOException {
+        context.close();
+        if (journalDir != null) {
+            try (Stream<Path> files = Files.walk(journalDir)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                    Files.delete(file);
+                }
+            }
+            journalDir = null;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Transfers {
+        private String self;
+        private String peer;
+        private boolean forward;
+        private SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void assign(TransferBenchmark benchmark) {
+            int id = benchmark.threadIds.getAndIncrement();
+            self = "bench-" + id;
+            peer = "HOT_RECEIVER".equals(benchmark.scenario) ? "bench-hot" : "bench-" + id + "-peer";
+            // One reproducible stream per thread, so contended threads do not pick the same wallets in lockstep
+            random = new SplittableRandom(42 + id);
+        }
+
+        TransferRequest next(String scenario) {
+            forward = !forward;
+            if ("CONTENDED".equals(scenario)) {
+                int from = random.nextInt(SHARED_WALLETS);
+                int to = (from + 1 + random.nextInt(SHARED_WALLETS - 1)) % SHARED_WALLETS;
+                return new TransferRequest("bench-shared-" + from, "bench-shared-" + to, 1, null);
+            }
+            if ("RANDOM".equals(scenario)) {
+                int from = random.nextInt(RANDOM_WALLETS);
+                int to = (from + 1 + random.nextInt(RANDOM_WALLETS - 1)) % RANDOM_WALLETS;
+                return new TransferRequest("bench-random-" + from, "bench-random-" + to, 1, null);
+            }
+            return forward
+                    ? new TransferRequest(self, peer, 1, null)
+                    : new TransferRequest(peer, self, 1, null);
+        }
+    }
+
+    @Benchmark
+    public void transferFunds(Transfers transfers, Blackhole blackhole) {
+        try {
+            blackhole.consume(walletService.transferFunds(transfers.next(scenario)));
+        } catch (RuntimeException e) {
+            // A random walk can briefly drain a shared wallet
+            blackhole.consume(e);
+        }
+    }
+}
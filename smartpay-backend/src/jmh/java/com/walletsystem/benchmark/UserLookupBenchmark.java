@@ -0,0 +1,76 @@
+package com.walletsystem.benchmark;
+
+import com.walletsystem.model.User;
+import com.walletsystem.service.UserService;
+import com.walletsystem.utils.PasswordHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserService.findUserByUsername at several user counts, with mixed-case input
+ * Defaults to 4 threads; override with -t
+ * Stops at 1,000,000 users: a user with its indexes holds about 570 heap bytes, so 10,000,000
+ * need about 6 GB, over the 4 GB fork. On a larger host run
+ * -p userCount=10000000 -jvmArgsAppend -Xmx10g
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@Threads(4)
+@State(Scope.Benchmark)
+public class UserLookupBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int userCount;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private String[] usernames;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start();
+        userService = context.getBean(UserService.class);
+        usernames = new String[userCount];
+        String passwordHash = PasswordHasher.hash("secret");
+        for (int i = 0; i < userCount; i++) {
+            String username = "Bench.User" + i;
+            userService.restoreUser(new User("USR-bench-" + i, username, "bench" + i + "@example.com", passwordHash));
+            usernames[i] = username;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public User findUserByUsername(Cursor cursor) {
+        int i = cursor.next;
+        cursor.next = i + 7919 < usernames.length ? i + 7919 : (i + 7919) % usernames.length;
+        return userService.findUserByUsername(usernames[i]);
+    }
+}
@@ -0,0 +1,22 @@
+package com.walletsystem.config;
+
+import com.walletsystem.utils.IdGenerator;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * ID generator configuration
+ * Every instance writing to a shared store needs its own wallet.node-id (0..1023)
+ */
+@Configuration
+public class IdGeneratorConfig {
+    
+    @Value("${wallet.node-id:0}")
+    private int nodeId;
+    
+    @PostConstruct
+    public void configureNodeId() {
+        IdGenerator.setNodeId(nodeId);
+    }
+}
@@ -0,0 +1,80 @@
+package com.walletsystem.controller;
+
+import com.walletsystem.model.dto.ApiResponse;
+import com.walletsystem.model.dto.DatasetReport;
+import com.walletsystem.model.dto.DatasetRequest;
+import com.walletsystem.model.dto.SystemStats;
+import com.walletsystem.service.DatasetService;
+import com.walletsystem.service.StatsService;
+import com.walletsystem.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Admin Controller demonstrating REST API endpoints
+ * Uses encapsulation
+ */
+@RestController
+@RequestMapping("/api/admin")
+@Tag(name = "Administration", description = "APIs for operating the wallet system")
+public class AdminController {
+    
+    @Autowired
+    private StatsService statsService;
+    
+    @Autowired
+    private DatasetService datasetService;
+    
+    @Autowired
+    private UserService userService;
+    
+    /**
+     * Get live system throughput
+     * GET /api/admin/stats
+     */
+    @GetMapping("/stats")
+    @Operation(summary = "Get system throughput",
+            description = "Transactions per second, volume per minute and failure rate over the last 1 minute, "
+                    + "5 minutes and 1 hour (admin only)")
+    public ResponseEntity<ApiResponse<SystemStats>> getStats() {
+        try {
+            SystemStats stats = statsService.getStats();
+            return ResponseEntity.ok(ApiResponse.success("System stats retrieved successfully", stats));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR.value()));
+        }
+    }
+    
+    /**
+     * Load a synthetic dataset for capacity testing
+     * POST /api/admin/dataset
+     */
+    @PostMapping("/dataset")
+    @Operation(summary = "Generate synthetic dataset",
+            description = "Generate a reproducible dataset of users, wallets and transactions from a seed, either into "
+                    + "the in-memory stores (not journaled, only when wallet.dataset.memory-enabled) or as a snapshot "
+                    + "file under wallet.dataset.dir that a fresh node boots from (admin only)")
+    public ResponseEntity<ApiResponse<DatasetReport>> generateDataset(
+            @RequestHeader("Authorization") String token,
+            @Valid @RequestBody DatasetRequest request) {
+        try {
+            userService.authenticate(token);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error(e.getMessage(), HttpStatus.UNAUTHORIZED.value()));
+        }
+        try {
+            DatasetReport report = datasetService.generate(request);
+            return ResponseEntity.ok(ApiResponse.success("Dataset generated successfully", report));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage(), HttpStatus.BAD_REQUEST.value()));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.walletsystem.controller;
+
+import com.walletsystem.service.LiveFeedService;
+import com.walletsystem.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Feed Controller demonstrating REST API endpoints
+ * Uses encapsulation
+ */
+@RestController
+@RequestMapping("/api/feed")
+@Tag(name = "Live Feed", description = "APIs for streaming transactions and balance changes")
+public class FeedController {
+
+    @Autowired
+    private LiveFeedService liveFeedService;
+
+    @Autowired
+    private UserService userService;
+
+    /**
+     * Stream the caller's new transactions and balance changes
+     * GET /api/feed/stream
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream live feed",
+            description = "Server-Sent Events of the caller's transactions (\"transaction\") and balances (\"balance\"). "
+                    + "A \"resync\" event means events were dropped and balance and history should be refetched. "
+                    + "Browsers' EventSource cannot set headers, so the token may also be passed as access_token")
+    public ResponseEntity<SseEmitter> stream(
+            @RequestHeader(value = "Authorization", required = false) String token,
+            @RequestParam(value = "access_token", required = false) String accessToken) {
+        String userId;
+        try {
+            userId = userService.authenticate(token != null ? token : accessToken);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        try {
+            return ResponseEntity.ok(liveFeedService.subscribe(userId));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
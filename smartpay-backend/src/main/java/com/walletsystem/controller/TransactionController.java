@@ -1,16 +1,28 @@
 package com.walletsystem.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.walletsystem.model.Transaction;
+import com.walletsystem.model.Money;
 import com.walletsystem.model.dto.ApiResponse;
+import com.walletsystem.model.dto.TransactionAnalytics;
+import com.walletsystem.model.dto.TransactionPage;
+import com.walletsystem.model.dto.TransactionSummary;
+import com.walletsystem.service.TransactionAnalyticsService;
 import com.walletsystem.service.TransactionService;
 import com.walletsystem.service.UserService;
+import com.walletsystem.utils.NdjsonStreams;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -22,22 +34,64 @@ import java.util.List;
 @Tag(name = "Transaction Management", description = "APIs for transaction operations")
 public class TransactionController {
     
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_GROUP_LIMIT = 100;
+    
     @Autowired
     private TransactionService transactionService;
     
+    @Autowired
+    private TransactionAnalyticsService analyticsService;
+    
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     /**
      * Get transaction history for a user
      * GET /api/transaction/history/{userId}
      */
     @GetMapping("/history/{userId}")
-    @Operation(summary = "Get transaction history", description = "Get transaction history for a user")
-    public ResponseEntity<ApiResponse<List<Transaction>>> getTransactionHistory(@PathVariable String userId) {
+    @Operation(summary = "Get transaction history",
+            description = "Get transaction history for a user, newest first. Pass limit (and the X-Next-Cursor "
+                    + "header of the previous page as cursor) to page through it")
+    public ResponseEntity<ApiResponse<List<Transaction>>> getTransactionHistory(
+            @PathVariable String userId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        try {
+            if (limit == null && cursor == null) {
+                List<Transaction> transactions = transactionService.getTransactionHistory(userId);
+                return ResponseEntity.ok(ApiResponse.success("Transaction history retrieved successfully", transactions));
+            }
+            
+            TransactionPage page = transactionService.getTransactionHistoryPage(userId, cursor, pageSize(limit));
+            return pageResponse("Transaction history retrieved successfully", page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage(), HttpStatus.BAD_REQUEST.value()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR.value()));
+        }
+    }
+    
+    /**
+     * Get money in/out totals, counts by type and daily totals for the last 30 days
+     * GET /api/transaction/summary/{userId}
+     */
+    @GetMapping("/summary/{userId}")
+    @Operation(summary = "Get transaction summary",
+            description = "Lifetime money in/out, counts by type and daily totals for the last 30 days of a user's "
+                    + "completed transactions")
+    public ResponseEntity<ApiResponse<TransactionSummary>> getTransactionSummary(@PathVariable String userId) {
         try {
-            List<Transaction> transactions = transactionService.getTransactionHistory(userId);
-            return ResponseEntity.ok(ApiResponse.success("Transaction history retrieved successfully", transactions));
+            TransactionSummary summary = transactionService.getTransactionSummary(userId);
+            return ResponseEntity.ok(ApiResponse.success("Transaction summary retrieved successfully", summary));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(ApiResponse.error(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR.value()));
@@ -80,23 +134,245 @@ public class TransactionController {
         }
     }
     
+    /**
+     * Stream all transactions as newline-delimited JSON (admin endpoint)
+     * GET /api/transaction/all/stream
+     */
+    @GetMapping(value = "/all/stream", produces = {"application/x-ndjson", MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Stream all transactions",
+            description = "Stream transactions as NDJSON, optionally filtered by type, time range and user (admin only)")
+    public ResponseEntity<StreamingResponseBody> streamAllTransactions(
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String userId) {
+        Transaction.TransactionType transactionType = null;
+        if (type != null) {
+            try {
+                transactionType = Transaction.TransactionType.valueOf(type.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                // Rejected before streaming starts, as a JSON error rather than an NDJSON body
+                return NdjsonStreams.error(objectMapper, HttpStatus.BAD_REQUEST, "Invalid transaction type");
+            }
+        }
+        Transaction.TransactionType filter = transactionType;
+        return NdjsonStreams.response(objectMapper,
+                () -> transactionService.streamTransactions(filter, from, to, userId));
+    }
+    
     /**
      * Get transactions by type
      * GET /api/transaction/type/{type}
      */
     @GetMapping("/type/{type}")
-    @Operation(summary = "Get transactions by type", description = "Get transactions filtered by type (CREDIT, DEBIT, TRANSFER)")
-    public ResponseEntity<ApiResponse<List<Transaction>>> getTransactionsByType(@PathVariable String type) {
+    @Operation(summary = "Get transactions by type",
+            description = "Get transactions filtered by type (CREDIT, DEBIT, TRANSFER), newest first. "
+                    + "Optional from/to bound the time range; limit and cursor page through the result")
+    public ResponseEntity<ApiResponse<List<Transaction>>> getTransactionsByType(
+            @PathVariable String type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        Transaction.TransactionType transactionType;
         try {
-            Transaction.TransactionType transactionType = Transaction.TransactionType.valueOf(type.toUpperCase());
-            List<Transaction> transactions = transactionService.getTransactionsByType(transactionType);
-            return ResponseEntity.ok(ApiResponse.success("Transactions retrieved successfully", transactions));
+            transactionType = Transaction.TransactionType.valueOf(type.toUpperCase());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(ApiResponse.error("Invalid transaction type", HttpStatus.BAD_REQUEST.value()));
+        }
+        
+        try {
+            if (from == null && to == null && limit == null && cursor == null) {
+                List<Transaction> transactions = transactionService.getTransactionsByType(transactionType);
+                return ResponseEntity.ok(ApiResponse.success("Transactions retrieved successfully", transactions));
+            }
+            
+            TransactionPage page = transactionService.queryTransactions(
+                    transactionType, null, from, to, cursor, pageSize(limit));
+            return pageResponse("Transactions retrieved successfully", page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage(), HttpStatus.BAD_REQUEST.value()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR.value()));
+        }
+    }
+    
+    /**
+     * Get transactions by status
+     * GET /api/transaction/status/{status}
+     */
+    @GetMapping("/status/{status}")
+    @Operation(summary = "Get transactions by status",
+            description = "Get one page of transactions with a status (PENDING, COMPLETED, FAILED, CANCELLED), "
+                    + "newest first, optionally bounded by from/to")
+    public ResponseEntity<ApiResponse<List<Transaction>>> getTransactionsByStatus(
+            @PathVariable String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        Transaction.TransactionStatus transactionStatus;
+        try {
+            transactionStatus = Transaction.TransactionStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("Invalid transaction status", HttpStatus.BAD_REQUEST.value()));
+        }
+        
+        try {
+            TransactionPage page = transactionService.queryTransactions(
+                    null, transactionStatus, from, to, cursor, pageSize(limit));
+            return pageResponse("Transactions retrieved successfully", page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage(), HttpStatus.BAD_REQUEST.value()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(ApiResponse.error(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR.value()));
         }
     }
+    
+    /**
+     * Search transactions by optional type, status and time range
+     * GET /api/transaction/search
+     */
+    @GetMapping("/search")
+    @Operation(summary = "Search transactions",
+            description = "Get one page of transactions matching optional type, status and from/to filters, newest first")
+    public ResponseEntity<ApiResponse<List<Transaction>>> searchTransactions(
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        try {
+            Transaction.TransactionType transactionType =
+                    type == null ? null : Transaction.TransactionType.valueOf(type.toUpperCase());
+            Transaction.TransactionStatus transactionStatus =
+                    status == null ? null : Transaction.TransactionStatus.valueOf(status.toUpperCase());
+            TransactionPage page = transactionService.queryTransactions(
+                    transactionType, transactionStatus, from, to, cursor, pageSize(limit));
+            return pageResponse("Transactions retrieved successfully", page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage(), HttpStatus.BAD_REQUEST.value()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR.value()));
+        }
+    }
+    
+    /**
+     * Transaction count and volume by type
+     * GET /api/transaction/analytics/by-type
+     */
+    @GetMapping("/analytics/by-type")
+    @Operation(summary = "Aggregate transactions by type",
+            description = "Net count and volume per transaction type, over optional from/to, type, status, "
+                    + "userId and minAmount/maxAmount filters")
+    public ResponseEntity<ApiResponse<TransactionAnalytics>> aggregateByType(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount) {
+        return analytics(TransactionAnalytics.GroupBy.TYPE, from, to, type, status, userId, minAmount, maxAmount, null);
+    }
+    
+    /**
+     * Transaction count and volume by day
+     * GET /api/transaction/analytics/by-day
+     */
+    @GetMapping("/analytics/by-day")
+    @Operation(summary = "Aggregate transactions by day",
+            description = "Net count and volume per UTC day, oldest first, over optional from/to, type, status, "
+                    + "userId and minAmount/maxAmount filters")
+    public ResponseEntity<ApiResponse<TransactionAnalytics>> aggregateByDay(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount) {
+        return analytics(TransactionAnalytics.GroupBy.DAY, from, to, type, status, userId, minAmount, maxAmount, null);
+    }
+    
+    /**
+     * Transaction count and volume by counterparty
+     * GET /api/transaction/analytics/by-counterparty
+     */
+    @GetMapping("/analytics/by-counterparty")
+    @Operation(summary = "Aggregate transactions by counterparty",
+            description = "Net count and volume per receiver (or, with userId, per party that user dealt with), "
+                    + "largest volume first, cut to limit (default 100)")
+    public ResponseEntity<ApiResponse<TransactionAnalytics>> aggregateByCounterparty(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) Integer limit) {
+        return analytics(TransactionAnalytics.GroupBy.COUNTERPARTY,
+                from, to, type, status, userId, minAmount, maxAmount, limit);
+    }
+    
+    /**
+     * Parse the shared analytics filters and run one aggregation
+     */
+    private ResponseEntity<ApiResponse<TransactionAnalytics>> analytics(
+            TransactionAnalytics.GroupBy groupBy, LocalDateTime from, LocalDateTime to, String type, String status,
+            String userId, BigDecimal minAmount, BigDecimal maxAmount, Integer limit) {
+        if (!analyticsService.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error("Transaction analytics is disabled", HttpStatus.SERVICE_UNAVAILABLE.value()));
+        }
+        try {
+            Transaction.TransactionType transactionType =
+                    type == null ? null : Transaction.TransactionType.valueOf(type.toUpperCase());
+            Transaction.TransactionStatus transactionStatus =
+                    status == null ? null : Transaction.TransactionStatus.valueOf(status.toUpperCase());
+            TransactionAnalytics analytics = analyticsService.aggregate(groupBy, from, to,
+                    transactionType, transactionStatus, userId,
+                    minAmount == null ? null : Money.fromDecimal(minAmount),
+                    maxAmount == null ? null : Money.fromDecimal(maxAmount),
+                    limit == null ? DEFAULT_GROUP_LIMIT : Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+            return ResponseEntity.ok(ApiResponse.success("Transaction analytics retrieved successfully", analytics));
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage(), HttpStatus.BAD_REQUEST.value()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR.value()));
+        }
+    }
+    
+    /**
+     * Clamp a requested page size to 1..MAX_PAGE_SIZE
+     */
+    private static int pageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+    
+    /**
+     * Page responses keep the list as data and return the cursor in a header
+     */
+    private static ResponseEntity<ApiResponse<List<Transaction>>> pageResponse(String message, TransactionPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(ApiResponse.success(message, page.getTransactions()));
+    }
 }
@@ -1,10 +1,12 @@
 package com.walletsystem.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.walletsystem.model.User;
 import com.walletsystem.model.dto.ApiResponse;
 import com.walletsystem.model.dto.UserLoginRequest;
 import com.walletsystem.model.dto.UserRegistrationRequest;
 import com.walletsystem.service.UserService;
+import com.walletsystem.utils.NdjsonStreams;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -12,6 +14,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * User Controller demonstrating REST API endpoints
@@ -25,6 +28,9 @@ public class UserController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     /**
      * Register a new user
      * POST /api/user/register
@@ -74,6 +80,22 @@ public class UserController {
         }
     }
     
+    /**
+     * Logout user
+     * POST /api/user/logout
+     */
+    @PostMapping("/logout")
+    @Operation(summary = "Logout user", description = "Invalidate the current token")
+    public ResponseEntity<ApiResponse<Void>> logoutUser(@RequestHeader("Authorization") String token) {
+        try {
+            userService.logout(token);
+            return ResponseEntity.ok(ApiResponse.success("Logout successful", null));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error(e.getMessage(), HttpStatus.UNAUTHORIZED.value()));
+        }
+    }
+    
     /**
      * Get all users (admin endpoint)
      * GET /api/user/all
@@ -89,4 +111,14 @@ public class UserController {
                     .body(ApiResponse.error(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR.value()));
         }
     }
+    
+    /**
+     * Stream all users as newline-delimited JSON (admin endpoint)
+     * GET /api/user/all/stream
+     */
+    @GetMapping(value = "/all/stream", produces = "application/x-ndjson")
+    @Operation(summary = "Stream all users", description = "Stream all users as NDJSON with constant memory (admin only)")
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+        return NdjsonStreams.response(objectMapper, () -> userService.streamAllUsers());
+    }
 }
@@ -1,17 +1,32 @@
 package com.walletsystem.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.walletsystem.model.Money;
 import com.walletsystem.model.Wallet;
 import com.walletsystem.model.dto.ApiResponse;
+import com.walletsystem.model.dto.BatchTransferRequest;
+import com.walletsystem.model.dto.BatchTransferResult;
 import com.walletsystem.model.dto.TransferRequest;
+import com.walletsystem.service.IdempotencyService;
 import com.walletsystem.service.UserService;
 import com.walletsystem.service.WalletService;
+import com.walletsystem.utils.IdGenerator;
+import com.walletsystem.utils.NdjsonStreams;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.UncheckedIOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Wallet Controller demonstrating REST API endpoints
@@ -28,15 +43,22 @@ public class WalletController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     /**
      * Get wallet balance
      * GET /api/wallet/balance/{userId}
      */
     @GetMapping("/balance/{userId}")
-    @Operation(summary = "Get wallet balance", description = "Get wallet balance for a user")
+    @Operation(summary = "Get wallet balance",
+            description = "Get wallet balance for a user. Balance, version and updatedAt are one consistent snapshot")
     public ResponseEntity<ApiResponse<Wallet>> getWalletBalance(@PathVariable String userId) {
         try {
-            Wallet wallet = walletService.getWalletBalance(userId);
+            Wallet wallet = walletService.getWalletSnapshot(userId);
             return ResponseEntity.ok(ApiResponse.success("Balance retrieved successfully", wallet));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -49,19 +71,29 @@ public class WalletController {
      * POST /api/wallet/addFunds
      */
     @PostMapping("/addFunds")
-    @Operation(summary = "Add funds to wallet", description = "Add random amount to wallet balance")
+    @Operation(summary = "Add funds to wallet",
+            description = "Add random amount to wallet balance. Retries with the same Idempotency-Key replay the first response")
     public ResponseEntity<ApiResponse<Wallet>> addFunds(
             @RequestHeader("Authorization") String token,
-            @RequestParam double amount) {
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestParam java.math.BigDecimal amount) {
         try {
             // Validate token and get user
-            userService.validateToken(token);
-            
-            // For demo purposes, we'll use a random amount if not specified
-            double randomAmount = amount > 0 ? amount : 100 + (Math.random() * 500);
+            String userId = userService.authenticate(token);
             
-            Wallet wallet = walletService.addFunds(userService.validateToken(token).getId(), randomAmount);
-            return ResponseEntity.ok(ApiResponse.success("Funds added successfully", wallet));
+            return idempotencyService.execute("addFunds", userId, idempotencyKey,
+                    IdempotencyService.fingerprint(amount.stripTrailingZeros().toPlainString()), () -> {
+                try {
+                    // For demo purposes, we'll use a random amount if not specified
+                    long randomAmount = amount.signum() > 0 ? Money.fromDecimal(amount) : IdGenerator.generateRandomBalance(100, 600);
+                    
+                    Wallet wallet = walletService.addFunds(userId, randomAmount).copy();
+                    return ResponseEntity.ok(ApiResponse.success("Funds added successfully", wallet));
+                } catch (Exception e) {
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                            .body(ApiResponse.error(e.getMessage(), HttpStatus.BAD_REQUEST.value()));
+                }
+            });
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(ApiResponse.error(e.getMessage(), HttpStatus.BAD_REQUEST.value()));
@@ -73,16 +105,80 @@ public class WalletController {
      * POST /api/wallet/transfer
      */
     @PostMapping("/transfer")
-    @Operation(summary = "Transfer funds", description = "Transfer funds between users")
-    public ResponseEntity<ApiResponse<com.walletsystem.model.Transaction>> transferFunds(
+    @Operation(summary = "Transfer funds",
+            description = "Transfer funds between users. Retries with the same Idempotency-Key replay the first response. "
+                    + "Returns 429 with Retry-After when the transfer queue is full")
+    public CompletableFuture<ResponseEntity<ApiResponse<com.walletsystem.model.Transaction>>> transferFunds(
             @RequestHeader("Authorization") String token,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody TransferRequest request) {
         try {
             // Validate token
-            userService.validateToken(token);
+            String userId = userService.authenticate(token);
             
-            com.walletsystem.model.Transaction transaction = walletService.transferFunds(request);
-            return ResponseEntity.ok(ApiResponse.success("Transfer completed successfully", transaction));
+            long fingerprint = IdempotencyService.fingerprint(request.getSenderId(), request.getReceiverId(),
+                    request.getAmount(), request.getDescription());
+            return idempotencyService.executeAsync("transfer", userId, idempotencyKey, fingerprint, () -> {
+                try {
+                    // The request thread is released here; the transfer completes on a worker
+                    return walletService.transferFundsAsync(request)
+                            .thenApply(transaction -> ResponseEntity.ok(
+                                    ApiResponse.success("Transfer completed successfully", transaction)))
+                            .exceptionally(WalletController::transferFailure);
+                } catch (RejectedExecutionException e) {
+                    return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                            .header(HttpHeaders.RETRY_AFTER, "1")
+                            .body(ApiResponse.error("Too many transfers in progress, retry later",
+                                    HttpStatus.TOO_MANY_REQUESTS.value())));
+                }
+            });
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage(), HttpStatus.BAD_REQUEST.value())));
+        }
+    }
+    
+    /**
+     * Response for a transfer that failed on a worker
+     * Business rejections (plain RuntimeException, IllegalArgumentException) are the client's 400.
+     * Shutdown, journal I/O, interrupts and cancellation are server faults and get a 500,
+     * which the idempotency cache does not keep, so the client can retry under the same key.
+     */
+    private static <T> ResponseEntity<ApiResponse<T>> transferFailure(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        HttpStatus status = cause instanceof IllegalStateException
+                || cause instanceof UncheckedIOException
+                || cause instanceof CancellationException
+                || !(cause instanceof RuntimeException)
+                ? HttpStatus.INTERNAL_SERVER_ERROR : HttpStatus.BAD_REQUEST;
+        return ResponseEntity.status(status).body(ApiResponse.error(cause.getMessage(), status.value()));
+    }
+    
+    /**
+     * Transfer funds in a batch
+     * POST /api/wallet/transfer/batch
+     */
+    @PostMapping("/transfer/batch")
+    @Operation(summary = "Batch transfer funds",
+            description = "Apply up to " + BatchTransferRequest.MAX_TRANSFERS + " transfers in one call with per-item "
+                    + "results. With atomic=true either all transfers are applied or none")
+    public ResponseEntity<ApiResponse<BatchTransferResult>> transferBatch(
+            @RequestHeader("Authorization") String token,
+            @Valid @RequestBody BatchTransferRequest request) {
+        try {
+            // Validate token once for the whole batch
+            userService.authenticate(token);
+            
+            BatchTransferResult result = walletService.transferBatch(request.getTransfers(), request.isAtomic());
+            String message;
+            if (result.getFailed() == 0) {
+                message = "Batch transfer completed successfully";
+            } else if (result.isAtomic()) {
+                message = "Batch transfer rolled back";
+            } else {
+                message = "Batch transfer completed with " + result.getFailed() + " failed transfers";
+            }
+            return ResponseEntity.ok(ApiResponse.success(message, result));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(ApiResponse.error(e.getMessage(), HttpStatus.BAD_REQUEST.value()));
@@ -104,4 +200,14 @@ public class WalletController {
                     .body(ApiResponse.error(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR.value()));
         }
     }
+    
+    /**
+     * Stream all wallets as newline-delimited JSON (admin endpoint)
+     * GET /api/wallet/all/stream
+     */
+    @GetMapping(value = "/all/stream", produces = "application/x-ndjson")
+    @Operation(summary = "Stream all wallets", description = "Stream all wallets as NDJSON with constant memory (admin only)")
+    public ResponseEntity<StreamingResponseBody> streamAllWallets() {
+        return NdjsonStreams.response(objectMapper, () -> walletService.streamAllWallets().map(Wallet::copy));
+    }
 }
@@ -0,0 +1,12 @@
+package com.walletsystem.exception;
+
+/**
+ * Thrown when a transfer is declined because the sender's balance does not cover it
+ * A business outcome rather than a failure, so callers and metrics can tell it apart by type
+ */
+public class InsufficientFundsException extends RuntimeException {
+
+    public InsufficientFundsException() {
+        super("Insufficient funds");
+    }
+}
@@ -0,0 +1,12 @@
+package com.walletsystem.exception;
+
+/**
+ * Thrown when a deposit amount is rejected by the wallet
+ * A business outcome rather than a failure, so callers and metrics can tell it apart by type
+ */
+public class InvalidAmountException extends RuntimeException {
+
+    public InvalidAmountException(String message) {
+        super(message);
+    }
+}
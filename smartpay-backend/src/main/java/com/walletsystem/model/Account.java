@@ -1,22 +1,36 @@
 package com.walletsystem.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.walletsystem.utils.EpochMicros;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
 /**
  * Base Account class demonstrating inheritance
  * Contains common account functionality
+ * Balance, version and last update time are held in one immutable BalanceState that
+ * writers replace by compare-and-set, so readers get a consistent snapshot from a
+ * single volatile read and never wait on a writer.
  */
 public abstract class Account {
+    private static final AtomicReferenceFieldUpdater<Account, BalanceState> STATE =
+            AtomicReferenceFieldUpdater.newUpdater(Account.class, BalanceState.class, "state");
+
     protected String accountId;
     protected String userId;
-    protected double balance;
+    private volatile BalanceState state;
     protected String accountType;
 
     public Account() {
+        this.state = new BalanceState(0, 0, EpochMicros.of(LocalDateTime.now()));
     }
 
-    public Account(String accountId, String userId, double balance, String accountType) {
+    public Account(String accountId, String userId, long balance, String accountType) {
         this.accountId = accountId;
         this.userId = userId;
-        this.balance = balance;
+        this.state = new BalanceState(balance, 0, EpochMicros.of(LocalDateTime.now()));
         this.accountType = accountType;
     }
 
@@ -37,12 +51,52 @@ public abstract class Account {
         this.userId = userId;
     }
 
-    public double getBalance() {
-        return balance;
+    @JsonSerialize(using = Money.Serializer.class)
+    public long getBalance() {
+        return state.balance();
+    }
+
+    /**
+     * Overwrite the balance regardless of the current version (restores and rollbacks)
+     */
+    @JsonDeserialize(using = Money.Deserializer.class)
+    public void setBalance(long balance) {
+        BalanceState current;
+        do {
+            current = state;
+        } while (!STATE.compareAndSet(this, current, current.next(balance)));
+    }
+
+    // Incremented by every balance change
+    public long getVersion() {
+        return state.version();
     }
 
-    public void setBalance(double balance) {
-        this.balance = balance;
+    public LocalDateTime getUpdatedAt() {
+        return EpochMicros.toDateTime(state.updatedAtMicros());
+    }
+
+    /**
+     * Current balance, version and update time, read together without locking
+     */
+    public BalanceState readState() {
+        return state;
+    }
+
+    /**
+     * Set the balance only if no other change landed since expectedVersion was read
+     * Returns false, changing nothing, if the version moved on
+     */
+    public boolean compareAndSetBalance(long expectedVersion, long newBalance) {
+        BalanceState current = state;
+        return current.version() == expectedVersion && STATE.compareAndSet(this, current, current.next(newBalance));
+    }
+
+    /**
+     * Install a state read back from the journal, keeping its version and update time
+     */
+    public void restoreState(BalanceState restored) {
+        this.state = restored;
     }
 
     public String getAccountType() {
@@ -54,7 +108,16 @@ public abstract class Account {
     }
 
     // Abstract methods for polymorphism
-    public abstract boolean canWithdraw(double amount);
-    public abstract boolean canDeposit(double amount);
+    public abstract boolean canWithdraw(long amount);
+    public abstract boolean canDeposit(long amount);
     public abstract String getAccountDetails();
+
+    /**
+     * One immutable balance state; replaced as a whole, never modified
+     */
+    public record BalanceState(long balance, long version, long updatedAtMicros) {
+        BalanceState next(long newBalance) {
+            return new BalanceState(newBalance, version + 1, EpochMicros.of(LocalDateTime.now()));
+        }
+    }
 }
@@ -21,6 +21,15 @@ public abstract class BaseEntity {
         this.id = id;
     }
 
+    /**
+     * Rebuild a stored entity with its recorded times, without reading the clock
+     */
+    protected BaseEntity(String id, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
     // Encapsulation - private fields with public getters/setters
     public String getId() {
         return id;
@@ -46,6 +55,13 @@ public abstract class BaseEntity {
         this.updatedAt = updatedAt;
     }
 
+    /**
+     * Mark the entity as changed now; called by setters of mutable state
+     */
+    protected void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
     // Abstract method demonstrating polymorphism
     public abstract String getEntityType();
 }
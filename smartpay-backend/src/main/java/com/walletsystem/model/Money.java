@@ -0,0 +1,149 @@
+package com.walletsystem.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+/**
+ * Fixed-point money helpers
+ * Amounts are primitive longs in minor units (cents for USD), so add,
+ * subtract and compare never allocate and never drift
+ * JSON amounts carry no currency, so they are always read and written with DEFAULT_SCALE;
+ * wallets therefore only accept currencies with that many minor-unit digits.
+ */
+public final class Money {
+
+    public static final int DEFAULT_SCALE = 2;
+
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    private Money() {
+    }
+
+    /**
+     * Number of minor-unit digits for a currency code (2 for USD, 0 for JPY)
+     */
+    public static int scale(String currency) {
+        if (currency == null) {
+            return DEFAULT_SCALE;
+        }
+        try {
+            int digits = Currency.getInstance(currency).getDefaultFractionDigits();
+            return digits < 0 ? DEFAULT_SCALE : digits;
+        } catch (IllegalArgumentException e) {
+            return DEFAULT_SCALE;
+        }
+    }
+
+    /**
+     * Reject a currency whose minor units the JSON amounts would misrepresent (e.g. JPY, BHD)
+     */
+    public static String requireDefaultScale(String currency) {
+        if (scale(currency) != DEFAULT_SCALE) {
+            throw new IllegalArgumentException("Unsupported currency " + currency
+                    + ": amounts have " + DEFAULT_SCALE + " decimal places");
+        }
+        return currency;
+    }
+
+    public static long add(long a, long b) {
+        long result = a + b;
+        if (((a ^ result) & (b ^ result)) < 0) {
+            throw new ArithmeticException("Money amount overflow");
+        }
+        return result;
+    }
+
+    public static long subtract(long a, long b) {
+        long result = a - b;
+        if (((a ^ b) & (a ^ result)) < 0) {
+            throw new ArithmeticException("Money amount overflow");
+        }
+        return result;
+    }
+
+    public static int compare(long a, long b) {
+        return Long.compare(a, b);
+    }
+
+    /**
+     * Convert a major-unit value (e.g. dollars) to minor units, rounding half-even
+     */
+    public static long ofMajor(double major) {
+        return ofMajor(major, DEFAULT_SCALE);
+    }
+
+    public static long ofMajor(double major, int scale) {
+        double scaled = major * POWERS_OF_TEN[scale];
+        if (Double.isNaN(scaled) || Math.abs(scaled) >= 0x1p63) {
+            throw new ArithmeticException("Money amount out of range");
+        }
+        return (long) Math.rint(scaled);
+    }
+
+    public static long fromDecimal(BigDecimal major) {
+        return fromDecimal(major, DEFAULT_SCALE);
+    }
+
+    public static long fromDecimal(BigDecimal major, int scale) {
+        try {
+            return major.setScale(scale, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("Money amount out of range");
+        }
+    }
+
+    public static BigDecimal toDecimal(long minor) {
+        return BigDecimal.valueOf(minor, DEFAULT_SCALE);
+    }
+
+    public static BigDecimal toDecimal(long minor, int scale) {
+        return BigDecimal.valueOf(minor, scale);
+    }
+
+    public static String format(long minor, int scale) {
+        return toDecimal(minor, scale).toPlainString();
+    }
+
+    /**
+     * Writes minor units as a decimal JSON number with DEFAULT_SCALE, e.g. 578932 as 5789.32
+     */
+    public static class Serializer extends JsonSerializer<Long> {
+        @Override
+        public void serialize(Long value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeNumber(toDecimal(value));
+        }
+    }
+
+    /**
+     * Reads a decimal JSON number or string into minor units with DEFAULT_SCALE
+     */
+    public static class Deserializer extends JsonDeserializer<Long> {
+        @Override
+        public Long deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                return fromDecimal(p.getDecimalValue());
+            }
+            if (token == JsonToken.VALUE_STRING) {
+                try {
+                    return fromDecimal(new BigDecimal(p.getText().trim()));
+                } catch (NumberFormatException e) {
+                    return (Long) ctxt.handleWeirdStringValue(Long.class, p.getText(), "not a valid amount");
+                }
+            }
+            return (Long) ctxt.handleUnexpectedToken(Long.class, p);
+        }
+    }
+}
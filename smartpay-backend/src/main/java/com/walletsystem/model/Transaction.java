@@ -1,6 +1,8 @@
 package com.walletsystem.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import java.time.LocalDateTime;
 
 /**
@@ -11,7 +13,8 @@ public class Transaction extends BaseEntity {
     private String transactionId;
     private String senderId;
     private String receiverId;
-    private double amount;
+    // Amount in minor units (see Money)
+    private long amount;
     private TransactionType type;
     private TransactionStatus status;
     private String description;
@@ -26,7 +29,7 @@ public class Transaction extends BaseEntity {
     }
 
     public Transaction(String transactionId, String senderId, String receiverId, 
-                     double amount, TransactionType type, String description) {
+                     long amount, TransactionType type, String description) {
         super(transactionId);
         this.transactionId = transactionId;
         this.senderId = senderId;
@@ -38,6 +41,34 @@ public class Transaction extends BaseEntity {
         this.status = TransactionStatus.COMPLETED;
     }
 
+    /**
+     * Rebuild a stored transaction as it was recorded; its update time is its creation time
+     * Used by the journal, snapshots and the off-heap store, where reading the clock per
+     * record would dominate decoding
+     */
+    public Transaction(String transactionId, String senderId, String receiverId, long amount,
+                       TransactionType type, TransactionStatus status, String description,
+                       LocalDateTime timestamp, LocalDateTime createdAt) {
+        super(transactionId, createdAt, createdAt);
+        this.transactionId = transactionId;
+        this.senderId = senderId;
+        this.receiverId = receiverId;
+        this.amount = amount;
+        this.type = type;
+        this.status = status;
+        this.description = description;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Copy of this transaction with another status
+     * Status changes are recorded as replacements, so readers holding the old record never see it change
+     */
+    public Transaction withStatus(TransactionStatus status) {
+        return new Transaction(transactionId, senderId, receiverId, amount, type, status, description,
+                timestamp, getCreatedAt());
+    }
+
     // Encapsulation - private fields with public getters/setters
     public String getTransactionId() {
         return transactionId;
@@ -63,12 +94,15 @@ public class Transaction extends BaseEntity {
         this.receiverId = receiverId;
     }
 
-    public double getAmount() {
+    @JsonSerialize(using = Money.Serializer.class)
+    public long getAmount() {
         return amount;
     }
 
-    public void setAmount(double amount) {
+    @JsonDeserialize(using = Money.Deserializer.class)
+    public void setAmount(long amount) {
         this.amount = amount;
+        touch();
     }
 
     public TransactionType getType() {
@@ -85,6 +119,7 @@ public class Transaction extends BaseEntity {
 
     public void setStatus(TransactionStatus status) {
         this.status = status;
+        touch();
     }
 
     public String getDescription() {
@@ -93,6 +128,7 @@ public class Transaction extends BaseEntity {
 
     public void setDescription(String description) {
         this.description = description;
+        touch();
     }
 
     public LocalDateTime getTimestamp() {
@@ -114,7 +150,7 @@ public class Transaction extends BaseEntity {
                 "transactionId='" + transactionId + '\'' +
                 ", senderId='" + senderId + '\'' +
                 ", receiverId='" + receiverId + '\'' +
-                ", amount=" + amount +
+                ", amount=" + Money.toDecimal(amount) +
                 ", type=" + type +
                 ", status=" + status +
                 ", timestamp=" + timestamp +
@@ -9,7 +9,8 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 public class User extends BaseEntity {
     private String username;
     private String email;
-    private String password;
+    // Salted hash from PasswordHasher; the plain password is never stored
+    private String passwordHash;
     private String token;
     private boolean isActive;
 
@@ -17,11 +18,11 @@ public class User extends BaseEntity {
         super();
     }
 
-    public User(String id, String username, String email, String password) {
+    public User(String id, String username, String email, String passwordHash) {
         super(id);
         this.username = username;
         this.email = email;
-        this.password = password;
+        this.passwordHash = passwordHash;
         this.isActive = true;
     }
 
@@ -32,6 +33,7 @@ public class User extends BaseEntity {
 
     public void setUsername(String username) {
         this.username = username;
+        touch();
     }
 
     public String getEmail() {
@@ -40,15 +42,17 @@ public class User extends BaseEntity {
 
     public void setEmail(String email) {
         this.email = email;
+        touch();
     }
 
     @JsonIgnore
-    public String getPassword() {
-        return password;
+    public String getPasswordHash() {
+        return passwordHash;
     }
 
-    public void setPassword(String password) {
-        this.password = password;
+    public void setPasswordHash(String passwordHash) {
+        this.passwordHash = passwordHash;
+        touch();
     }
 
     public String getToken() {
@@ -57,6 +61,7 @@ public class User extends BaseEntity {
 
     public void setToken(String token) {
         this.token = token;
+        touch();
     }
 
     public boolean isActive() {
@@ -65,6 +70,7 @@ public class User extends BaseEntity {
 
     public void setActive(boolean active) {
         isActive = active;
+        touch();
     }
 
     @Override
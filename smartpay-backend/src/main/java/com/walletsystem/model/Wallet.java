@@ -14,7 +14,7 @@ public class Wallet extends Account {
         this.currency = "USD";
     }
 
-    public Wallet(String accountId, String userId, double balance, String walletName) {
+    public Wallet(String accountId, String userId, long balance, String walletName) {
         super(accountId, userId, balance, "WALLET");
         this.walletName = walletName;
         this.currency = "USD";
@@ -33,41 +33,77 @@ public class Wallet extends Account {
         return currency;
     }
 
+    // Only currencies with Money.DEFAULT_SCALE minor-unit digits, as that is how amounts are serialized
     public void setCurrency(String currency) {
-        this.currency = currency;
+        this.currency = Money.requireDefaultScale(currency);
     }
 
     // Polymorphism - implementing abstract methods from Account
     @Override
-    public boolean canWithdraw(double amount) {
-        return amount > 0 && amount <= balance;
+    public boolean canWithdraw(long amount) {
+        return amount > 0 && amount <= getBalance();
     }
 
     @Override
-    public boolean canDeposit(double amount) {
+    public boolean canDeposit(long amount) {
         return amount > 0;
     }
 
     @Override
     public String getAccountDetails() {
-        return String.format("Wallet: %s (ID: %s) - Balance: %.2f %s", 
-                walletName, accountId, balance, currency);
+        return String.format("Wallet: %s (ID: %s) - Balance: %s %s", 
+                walletName, accountId, Money.format(getBalance(), Money.scale(currency)), currency);
     }
 
     // Wallet-specific methods
-    public boolean transferTo(Wallet targetWallet, double amount) {
-        if (canWithdraw(amount) && targetWallet.canDeposit(amount)) {
-            this.balance -= amount;
-            targetWallet.balance += amount;
-            return true;
+    // Each side is a version-checked compare-and-set; callers must hold the locks of
+    // both wallets (see WalletService) for the pair to change atomically
+    public boolean transferTo(Wallet targetWallet, long amount) {
+        if (!targetWallet.canDeposit(amount) || !withdraw(amount)) {
+            return false;
+        }
+        try {
+            targetWallet.addFunds(amount);
+        } catch (RuntimeException e) {
+            addFunds(amount);
+            throw e;
+        }
+        return true;
+    }
+
+    public boolean withdraw(long amount) {
+        while (true) {
+            BalanceState current = readState();
+            if (amount <= 0 || amount > current.balance()) {
+                return false;
+            }
+            if (compareAndSetBalance(current.version(), Money.subtract(current.balance(), amount))) {
+                return true;
+            }
         }
-        return false;
     }
 
-    public void addFunds(double amount) {
-        if (canDeposit(amount)) {
-            this.balance += amount;
+    public void addFunds(long amount) {
+        if (!canDeposit(amount)) {
+            return;
         }
+        while (true) {
+            BalanceState current = readState();
+            if (compareAndSetBalance(current.version(), Money.add(current.balance(), amount))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Detached copy carrying one consistent balance state, safe to serialize while transfers continue
+     */
+    public Wallet copy() {
+        BalanceState current = readState();
+        Wallet wallet = new Wallet(accountId, userId, current.balance(), walletName);
+        wallet.setCurrency(currency);
+        wallet.restoreState(current);
+        return wallet;
     }
 
     @Override
@@ -75,7 +111,7 @@ public class Wallet extends Account {
         return "Wallet{" +
                 "accountId='" + accountId + '\'' +
                 ", userId='" + userId + '\'' +
-                ", balance=" + balance +
+                ", balance=" + Money.format(getBalance(), Money.scale(currency)) +
                 ", walletName='" + walletName + '\'' +
                 ", currency='" + currency + '\'' +
                 '}';
@@ -0,0 +1,83 @@
+package com.walletsystem.model.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.walletsystem.model.Money;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for a wallet balance pushed to live feed subscribers after a committed change
+ */
+public class BalanceUpdate {
+    private String userId;
+    private String walletId;
+    private long balance;
+    private long version;
+    private String currency;
+    private LocalDateTime timestamp;
+
+    public BalanceUpdate() {
+    }
+
+    public BalanceUpdate(String userId, String walletId, long balance, long version, String currency,
+                         LocalDateTime timestamp) {
+        this.userId = userId;
+        this.walletId = walletId;
+        this.balance = balance;
+        this.version = version;
+        this.currency = currency;
+        this.timestamp = timestamp;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getWalletId() {
+        return walletId;
+    }
+
+    public void setWalletId(String walletId) {
+        this.walletId = walletId;
+    }
+
+    @JsonSerialize(using = Money.Serializer.class)
+    public long getBalance() {
+        return balance;
+    }
+
+    public void setBalance(long balance) {
+        this.balance = balance;
+    }
+
+    /**
+     * Wallet version after the change; events for one wallet can be ordered by it
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,45 @@
+package com.walletsystem.model.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * DTO for a batch of fund transfers
+ * With atomic set, either every transfer is applied or none is
+ */
+public class BatchTransferRequest {
+    public static final int MAX_TRANSFERS = 10000;
+
+    @NotEmpty(message = "Transfers are required")
+    @Size(max = MAX_TRANSFERS, message = "At most " + MAX_TRANSFERS + " transfers per batch")
+    private List<@Valid TransferRequest> transfers;
+
+    private boolean atomic;
+
+    public BatchTransferRequest() {
+    }
+
+    public BatchTransferRequest(List<TransferRequest> transfers, boolean atomic) {
+        this.transfers = transfers;
+        this.atomic = atomic;
+    }
+
+    public List<TransferRequest> getTransfers() {
+        return transfers;
+    }
+
+    public void setTransfers(List<TransferRequest> transfers) {
+        this.transfers = transfers;
+    }
+
+    public boolean isAtomic() {
+        return atomic;
+    }
+
+    public void setAtomic(boolean atomic) {
+        this.atomic = atomic;
+    }
+}
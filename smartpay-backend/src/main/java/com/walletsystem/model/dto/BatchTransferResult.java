@@ -0,0 +1,120 @@
+package com.walletsystem.model.dto;
+
+import java.util.List;
+
+/**
+ * DTO for the outcome of a batch transfer, one item per request in request order
+ */
+public class BatchTransferResult {
+    private boolean atomic;
+    private int succeeded;
+    private int failed;
+    private List<Item> results;
+
+    public BatchTransferResult() {
+    }
+
+    public BatchTransferResult(boolean atomic, List<Item> results) {
+        this.atomic = atomic;
+        this.results = results;
+        for (Item item : results) {
+            if (item.isSuccess()) {
+                succeeded++;
+            } else {
+                failed++;
+            }
+        }
+    }
+
+    public boolean isAtomic() {
+        return atomic;
+    }
+
+    public void setAtomic(boolean atomic) {
+        this.atomic = atomic;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<Item> getResults() {
+        return results;
+    }
+
+    public void setResults(List<Item> results) {
+        this.results = results;
+    }
+
+    /**
+     * Result of one transfer: the created transaction ID, or the reason it failed
+     */
+    public static class Item {
+        private int index;
+        private boolean success;
+        private String transactionId;
+        private String error;
+
+        public Item() {
+        }
+
+        public static Item success(int index, String transactionId) {
+            Item item = new Item();
+            item.index = index;
+            item.success = true;
+            item.transactionId = transactionId;
+            return item;
+        }
+
+        public static Item failure(int index, String error) {
+            Item item = new Item();
+            item.index = index;
+            item.error = error;
+            return item;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public void setSuccess(boolean success) {
+            this.success = success;
+        }
+
+        public String getTransactionId() {
+            return transactionId;
+        }
+
+        public void setTransactionId(String transactionId) {
+            this.transactionId = transactionId;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.walletsystem.model.dto;
+
+/**
+ * DTO for the outcome of a synthetic dataset load
+ */
+public class DatasetReport {
+    private DatasetRequest.Target target;
+    private String path;
+    private long users;
+    private long wallets;
+    private long transactions;
+    private long millis;
+
+    public DatasetReport() {
+    }
+
+    public DatasetReport(DatasetRequest.Target target, String path, long users, long wallets,
+                         long transactions, long millis) {
+        this.target = target;
+        this.path = path;
+        this.users = users;
+        this.wallets = wallets;
+        this.transactions = transactions;
+        this.millis = millis;
+    }
+
+    public DatasetRequest.Target getTarget() {
+        return target;
+    }
+
+    public void setTarget(DatasetRequest.Target target) {
+        this.target = target;
+    }
+
+    // Snapshot file written, for the SNAPSHOT target
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public long getUsers() {
+        return users;
+    }
+
+    public void setUsers(long users) {
+        this.users = users;
+    }
+
+    public long getWallets() {
+        return wallets;
+    }
+
+    public void setWallets(long wallets) {
+        this.wallets = wallets;
+    }
+
+    public long getTransactions() {
+        return transactions;
+    }
+
+    public void setTransactions(long transactions) {
+        this.transactions = transactions;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public void setMillis(long millis) {
+        this.millis = millis;
+    }
+
+    public double getRecordsPerSecond() {
+        return millis == 0 ? 0 : (users + wallets + transactions) * 1000.0 / millis;
+    }
+}
@@ -0,0 +1,196 @@
+package com.walletsystem.model.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+
+import java.time.LocalDate;
+
+/**
+ * DTO describing a synthetic dataset; the same request with the same seed always produces the same data
+ * Activity and merchant popularity are Zipfian; amounts follow a weighted histogram of
+ * major-unit ranges written "low-high:weight,...", drawn log-uniformly within a range.
+ */
+public class DatasetRequest {
+    private long seed = 42;
+
+    @Positive(message = "Users must be positive")
+    private int users = 10_000;
+
+    @PositiveOrZero(message = "Transactions must not be negative")
+    private long transactions = 100_000;
+
+    // Transactions are spread over this many days ending with endDate (default today)
+    @Positive(message = "Days must be positive")
+    @Max(value = 3650, message = "At most 3650 days")
+    private int days = 30;
+
+    private LocalDate endDate;
+
+    // Zipf exponent of how often a user sends or receives (higher = more skewed)
+    @DecimalMin(value = "0.01", message = "Activity exponent must be positive")
+    private double activityExponent = 0.9;
+
+    @Positive(message = "Merchants must be positive")
+    private int merchants = 1_000;
+
+    @DecimalMin(value = "0.01", message = "Merchant exponent must be positive")
+    private double merchantExponent = 1.3;
+
+    // Shares of merchant payments (DEBIT) and deposits (CREDIT); the rest are user transfers
+    @DecimalMin(value = "0", message = "Merchant share must be between 0 and 1")
+    @DecimalMax(value = "1", message = "Merchant share must be between 0 and 1")
+    private double merchantShare = 0.35;
+
+    @DecimalMin(value = "0", message = "Credit share must be between 0 and 1")
+    @DecimalMax(value = "1", message = "Credit share must be between 0 and 1")
+    private double creditShare = 0.15;
+
+    private String amounts = "1-10:30,10-100:50,100-1000:18,1000-10000:2";
+
+    private Target target = Target.MEMORY;
+
+    // Output directory for the SNAPSHOT target, relative to wallet.dataset.dir; must be empty or not exist
+    private String directory = "dataset";
+
+    // Generator threads (0 = one per core; more than the cores are capped to the cores)
+    @PositiveOrZero(message = "Threads must not be negative")
+    @Max(value = 1024, message = "At most 1024 threads")
+    private int threads;
+
+    // Node ID embedded in generated IDs, kept apart from live nodes so IDs never collide
+    @Min(value = 0, message = "Node ID must be between 0 and 1023")
+    @Max(value = 1023, message = "Node ID must be between 0 and 1023")
+    private int nodeId = 1023;
+
+    public DatasetRequest() {
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public void setUsers(int users) {
+        this.users = users;
+    }
+
+    public long getTransactions() {
+        return transactions;
+    }
+
+    public void setTransactions(long transactions) {
+        this.transactions = transactions;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public void setDays(int days) {
+        this.days = days;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    public double getActivityExponent() {
+        return activityExponent;
+    }
+
+    public void setActivityExponent(double activityExponent) {
+        this.activityExponent = activityExponent;
+    }
+
+    public int getMerchants() {
+        return merchants;
+    }
+
+    public void setMerchants(int merchants) {
+        this.merchants = merchants;
+    }
+
+    public double getMerchantExponent() {
+        return merchantExponent;
+    }
+
+    public void setMerchantExponent(double merchantExponent) {
+        this.merchantExponent = merchantExponent;
+    }
+
+    public double getMerchantShare() {
+        return merchantShare;
+    }
+
+    public void setMerchantShare(double merchantShare) {
+        this.merchantShare = merchantShare;
+    }
+
+    public double getCreditShare() {
+        return creditShare;
+    }
+
+    public void setCreditShare(double creditShare) {
+        this.creditShare = creditShare;
+    }
+
+    public String getAmounts() {
+        return amounts;
+    }
+
+    public void setAmounts(String amounts) {
+        this.amounts = amounts;
+    }
+
+    public Target getTarget() {
+        return target;
+    }
+
+    public void setTarget(Target target) {
+        this.target = target;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(int nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    // Where generated records go: the live in-memory stores, or a snapshot file a fresh node boots from
+    public enum Target {
+        MEMORY, SNAPSHOT
+    }
+}
@@ -0,0 +1,140 @@
+package com.walletsystem.model.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.walletsystem.model.Money;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO for system-wide throughput over trailing windows (last minute, 5 minutes, hour)
+ */
+public class SystemStats {
+    private LocalDateTime timestamp;
+    private List<Window> windows;
+
+    public SystemStats() {
+    }
+
+    public SystemStats(LocalDateTime timestamp, List<Window> windows) {
+        this.timestamp = timestamp;
+        this.windows = windows;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public List<Window> getWindows() {
+        return windows;
+    }
+
+    public void setWindows(List<Window> windows) {
+        this.windows = windows;
+    }
+
+    /**
+     * Totals and rates over one trailing window of completed seconds or minutes
+     */
+    public static class Window {
+        private String window;
+        private long seconds;
+        private long transactions;
+        private long volume;
+        private long deposits;
+        private long transfers;
+        private long failures;
+
+        public Window() {
+        }
+
+        public Window(String window, long seconds, long transactions, long volume,
+                      long deposits, long transfers, long failures) {
+            this.window = window;
+            this.seconds = seconds;
+            this.transactions = transactions;
+            this.volume = volume;
+            this.deposits = deposits;
+            this.transfers = transfers;
+            this.failures = failures;
+        }
+
+        public String getWindow() {
+            return window;
+        }
+
+        public void setWindow(String window) {
+            this.window = window;
+        }
+
+        public long getSeconds() {
+            return seconds;
+        }
+
+        public void setSeconds(long seconds) {
+            this.seconds = seconds;
+        }
+
+        public long getTransactions() {
+            return transactions;
+        }
+
+        public void setTransactions(long transactions) {
+            this.transactions = transactions;
+        }
+
+        public double getTransactionsPerSecond() {
+            return seconds == 0 ? 0 : (double) transactions / seconds;
+        }
+
+        @JsonSerialize(using = Money.Serializer.class)
+        public long getVolume() {
+            return volume;
+        }
+
+        public void setVolume(long volume) {
+            this.volume = volume;
+        }
+
+        @JsonSerialize(using = Money.Serializer.class)
+        public long getVolumePerMinute() {
+            return seconds == 0 ? 0 : volume * 60 / seconds;
+        }
+
+        public long getDeposits() {
+            return deposits;
+        }
+
+        public void setDeposits(long deposits) {
+            this.deposits = deposits;
+        }
+
+        public long getTransfers() {
+            return transfers;
+        }
+
+        public void setTransfers(long transfers) {
+            this.transfers = transfers;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public void setFailures(long failures) {
+            this.failures = failures;
+        }
+
+        /**
+         * Failed deposits and transfers as a fraction of all attempted
+         */
+        public double getFailureRate() {
+            long attempts = deposits + transfers + failures;
+            return attempts == 0 ? 0 : (double) failures / attempts;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.walletsystem.model.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.walletsystem.model.Money;
+
+import java.util.List;
+
+/**
+ * DTO for one aggregation over the transaction analytics mirror
+ * Counts and volumes are net: a transaction replaced under the same ID only counts once.
+ * Totals cover every group, including groups cut off by the limit.
+ */
+public class TransactionAnalytics {
+    private GroupBy groupBy;
+    private long count;
+    private long volume;
+    private List<Group> groups;
+    // Scan cost: rows read, chunks skipped by their zone maps, and wall time
+    private long scannedRows;
+    private long skippedChunks;
+    private long elapsedMicros;
+
+    public TransactionAnalytics() {
+    }
+
+    public TransactionAnalytics(GroupBy groupBy, long count, long volume, List<Group> groups,
+                                long scannedRows, long skippedChunks, long elapsedMicros) {
+        this.groupBy = groupBy;
+        this.count = count;
+        this.volume = volume;
+        this.groups = groups;
+        this.scannedRows = scannedRows;
+        this.skippedChunks = skippedChunks;
+        this.elapsedMicros = elapsedMicros;
+    }
+
+    public GroupBy getGroupBy() {
+        return groupBy;
+    }
+
+    public void setGroupBy(GroupBy groupBy) {
+        this.groupBy = groupBy;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    @JsonSerialize(using = Money.Serializer.class)
+    public long getVolume() {
+        return volume;
+    }
+
+    public void setVolume(long volume) {
+        this.volume = volume;
+    }
+
+    public List<Group> getGroups() {
+        return groups;
+    }
+
+    public void setGroups(List<Group> groups) {
+        this.groups = groups;
+    }
+
+    public long getScannedRows() {
+        return scannedRows;
+    }
+
+    public void setScannedRows(long scannedRows) {
+        this.scannedRows = scannedRows;
+    }
+
+    public long getSkippedChunks() {
+        return skippedChunks;
+    }
+
+    public void setSkippedChunks(long skippedChunks) {
+        this.skippedChunks = skippedChunks;
+    }
+
+    public long getElapsedMicros() {
+        return elapsedMicros;
+    }
+
+    public void setElapsedMicros(long elapsedMicros) {
+        this.elapsedMicros = elapsedMicros;
+    }
+
+    /**
+     * Transaction count and volume for one key: a type, a date (yyyy-MM-dd) or a counterparty user ID
+     */
+    public static class Group {
+        private String key;
+        private long count;
+        private long volume;
+
+        public Group() {
+        }
+
+        public Group(String key, long count, long volume) {
+            this.key = key;
+            this.count = count;
+            this.volume = volume;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        @JsonSerialize(using = Money.Serializer.class)
+        public long getVolume() {
+            return volume;
+        }
+
+        public void setVolume(long volume) {
+            this.volume = volume;
+        }
+    }
+
+    // What rows are grouped by; COUNTERPARTY is the receiver, or the other party when filtering by user
+    public enum GroupBy {
+        TYPE, DAY, COUNTERPARTY
+    }
+}
@@ -0,0 +1,37 @@
+package com.walletsystem.model.dto;
+
+import com.walletsystem.model.Transaction;
+
+import java.util.List;
+
+/**
+ * DTO for one page of transactions plus the cursor for the next page
+ */
+public class TransactionPage {
+    private List<Transaction> transactions;
+    private String nextCursor;
+
+    public TransactionPage() {
+    }
+
+    public TransactionPage(List<Transaction> transactions, String nextCursor) {
+        this.transactions = transactions;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    public void setTransactions(List<Transaction> transactions) {
+        this.transactions = transactions;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,143 @@
+package com.walletsystem.model.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.walletsystem.model.Money;
+import com.walletsystem.model.Transaction;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO for a user's money in/out totals, counts by type and daily totals, oldest day first
+ */
+public class TransactionSummary {
+    private String userId;
+    private long moneyIn;
+    private long moneyOut;
+    private long transactionCount;
+    private Map<Transaction.TransactionType, Long> countsByType;
+    private List<Day> days;
+
+    public TransactionSummary() {
+    }
+
+    public TransactionSummary(String userId, long moneyIn, long moneyOut, long transactionCount,
+                              Map<Transaction.TransactionType, Long> countsByType, List<Day> days) {
+        this.userId = userId;
+        this.moneyIn = moneyIn;
+        this.moneyOut = moneyOut;
+        this.transactionCount = transactionCount;
+        this.countsByType = countsByType;
+        this.days = days;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    @JsonSerialize(using = Money.Serializer.class)
+    public long getMoneyIn() {
+        return moneyIn;
+    }
+
+    public void setMoneyIn(long moneyIn) {
+        this.moneyIn = moneyIn;
+    }
+
+    @JsonSerialize(using = Money.Serializer.class)
+    public long getMoneyOut() {
+        return moneyOut;
+    }
+
+    public void setMoneyOut(long moneyOut) {
+        this.moneyOut = moneyOut;
+    }
+
+    @JsonSerialize(using = Money.Serializer.class)
+    public long getNet() {
+        return moneyIn - moneyOut;
+    }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public void setTransactionCount(long transactionCount) {
+        this.transactionCount = transactionCount;
+    }
+
+    public Map<Transaction.TransactionType, Long> getCountsByType() {
+        return countsByType;
+    }
+
+    public void setCountsByType(Map<Transaction.TransactionType, Long> countsByType) {
+        this.countsByType = countsByType;
+    }
+
+    public List<Day> getDays() {
+        return days;
+    }
+
+    public void setDays(List<Day> days) {
+        this.days = days;
+    }
+
+    /**
+     * Totals for one calendar day; days without transactions are reported as zero
+     */
+    public static class Day {
+        private LocalDate date;
+        private long moneyIn;
+        private long moneyOut;
+        private int transactionCount;
+
+        public Day() {
+        }
+
+        public Day(LocalDate date, long moneyIn, long moneyOut, int transactionCount) {
+            this.date = date;
+            this.moneyIn = moneyIn;
+            this.moneyOut = moneyOut;
+            this.transactionCount = transactionCount;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public void setDate(LocalDate date) {
+            this.date = date;
+        }
+
+        @JsonSerialize(using = Money.Serializer.class)
+        public long getMoneyIn() {
+            return moneyIn;
+        }
+
+        public void setMoneyIn(long moneyIn) {
+            this.moneyIn = moneyIn;
+        }
+
+        @JsonSerialize(using = Money.Serializer.class)
+        public long getMoneyOut() {
+            return moneyOut;
+        }
+
+        public void setMoneyOut(long moneyOut) {
+            this.moneyOut = moneyOut;
+        }
+
+        public int getTransactionCount() {
+            return transactionCount;
+        }
+
+        public void setTransactionCount(int transactionCount) {
+            this.transactionCount = transactionCount;
+        }
+    }
+}
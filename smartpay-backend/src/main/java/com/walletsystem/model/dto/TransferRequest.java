@@ -1,5 +1,9 @@
 package com.walletsystem.model.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.walletsystem.model.Money;
+import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
 
@@ -13,15 +17,19 @@ public class TransferRequest {
     @NotBlank(message = "Receiver ID is required")
     private String receiverId;
 
+    // Amount in minor units, sent and received as a decimal number
     @Positive(message = "Amount must be positive")
-    private double amount;
+    @Schema(type = "number", example = "200.00")
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private long amount;
 
     private String description;
 
     public TransferRequest() {
     }
 
-    public TransferRequest(String senderId, String receiverId, double amount, String description) {
+    public TransferRequest(String senderId, String receiverId, long amount, String description) {
         this.senderId = senderId;
         this.receiverId = receiverId;
         this.amount = amount;
@@ -44,11 +52,11 @@ public class TransferRequest {
         this.receiverId = receiverId;
     }
 
-    public double getAmount() {
+    public long getAmount() {
         return amount;
     }
 
-    public void setAmount(double amount) {
+    public void setAmount(long amount) {
         this.amount = amount;
     }
 
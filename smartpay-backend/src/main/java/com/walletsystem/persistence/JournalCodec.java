@@ -0,0 +1,145 @@
+package com.walletsystem.persistence;
+
+import com.walletsystem.model.Account;
+import com.walletsystem.model.Transaction;
+import com.walletsystem.model.User;
+import com.walletsystem.model.Wallet;
+import com.walletsystem.utils.EpochMicros;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Binary encoding of entities shared by the journal and snapshot files
+ * Strings are length-prefixed UTF-8 (-1 for null), times are epoch micros
+ */
+final class JournalCodec {
+
+    static final byte ENTRY_TRANSACTION = 1;
+    static final byte ENTRY_WALLET = 2;
+    static final byte ENTRY_USER = 3;
+    // Wallet with its balance version and update time; plain ENTRY_WALLET is still read
+    static final byte ENTRY_VERSIONED_WALLET = 4;
+
+    private static final Transaction.TransactionType[] TYPES = Transaction.TransactionType.values();
+    private static final Transaction.TransactionStatus[] STATUSES = Transaction.TransactionStatus.values();
+
+    private JournalCodec() {
+    }
+
+    static void writeTransaction(ByteBuffer buffer, Transaction transaction) {
+        writeTransaction(buffer, transaction.getTransactionId(), transaction.getSenderId(),
+                transaction.getReceiverId(), transaction.getAmount(), transaction.getType(),
+                transaction.getStatus(), transaction.getDescription(),
+                toMicros(transaction.getTimestamp()), toMicros(transaction.getCreatedAt()));
+    }
+
+    /**
+     * Same encoding from plain fields, for writers that never build a Transaction
+     */
+    static void writeTransaction(ByteBuffer buffer, String transactionId, String senderId, String receiverId,
+                                 long amount, Transaction.TransactionType type, Transaction.TransactionStatus status,
+                                 String description, long timestampMicros, long createdAtMicros) {
+        writeString(buffer, transactionId);
+        writeString(buffer, senderId);
+        writeString(buffer, receiverId);
+        buffer.putLong(amount);
+        buffer.put(type == null ? -1 : (byte) type.ordinal());
+        buffer.put(status == null ? -1 : (byte) status.ordinal());
+        writeString(buffer, description);
+        buffer.putLong(timestampMicros);
+        buffer.putLong(createdAtMicros);
+    }
+
+    static Transaction readTransaction(ByteBuffer buffer) {
+        String transactionId = readString(buffer);
+        String senderId = readString(buffer);
+        String receiverId = readString(buffer);
+        long amount = buffer.getLong();
+        byte type = buffer.get();
+        byte status = buffer.get();
+        String description = readString(buffer);
+        LocalDateTime timestamp = fromMicros(buffer.getLong());
+        LocalDateTime createdAt = fromMicros(buffer.getLong());
+        return new Transaction(transactionId, senderId, receiverId, amount, type < 0 ? null : TYPES[type],
+                status < 0 ? null : STATUSES[status], description, timestamp, createdAt);
+    }
+
+    /**
+     * Written as ENTRY_VERSIONED_WALLET; balance and version come from one state read
+     */
+    static void writeWallet(ByteBuffer buffer, Wallet wallet) {
+        Account.BalanceState state = wallet.readState();
+        writeString(buffer, wallet.getUserId());
+        writeString(buffer, wallet.getAccountId());
+        writeString(buffer, wallet.getWalletName());
+        writeString(buffer, wallet.getCurrency());
+        buffer.putLong(state.balance());
+        buffer.putLong(state.version());
+        buffer.putLong(state.updatedAtMicros());
+    }
+
+    static Wallet readWallet(ByteBuffer buffer, boolean versioned) {
+        String userId = readString(buffer);
+        String accountId = readString(buffer);
+        String walletName = readString(buffer);
+        String currency = readString(buffer);
+        long balance = buffer.getLong();
+        Wallet wallet = new Wallet(accountId, userId, balance, walletName);
+        wallet.setCurrency(currency);
+        if (versioned) {
+            wallet.restoreState(new Account.BalanceState(balance, buffer.getLong(), buffer.getLong()));
+        }
+        return wallet;
+    }
+
+    static void writeUser(ByteBuffer buffer, User user) {
+        writeString(buffer, user.getId());
+        writeString(buffer, user.getUsername());
+        writeString(buffer, user.getEmail());
+        writeString(buffer, user.getPasswordHash());
+        buffer.put(user.isActive() ? (byte) 1 : (byte) 0);
+        buffer.putLong(toMicros(user.getCreatedAt()));
+        buffer.putLong(toMicros(user.getUpdatedAt()));
+    }
+
+    static User readUser(ByteBuffer buffer) {
+        User user = new User(readString(buffer), readString(buffer), readString(buffer), readString(buffer));
+        user.setActive(buffer.get() == 1);
+        user.setCreatedAt(fromMicros(buffer.getLong()));
+        user.setUpdatedAt(fromMicros(buffer.getLong()));
+        return user;
+    }
+
+    static void writeString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new IllegalStateException("Corrupt string length: " + length);
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    static long toMicros(LocalDateTime time) {
+        return EpochMicros.of(time);
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return EpochMicros.toDateTime(micros);
+    }
+}
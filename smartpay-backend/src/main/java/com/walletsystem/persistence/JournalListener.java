@@ -0,0 +1,17 @@
+package com.walletsystem.persistence;
+
+import com.walletsystem.model.Transaction;
+import com.walletsystem.model.User;
+import com.walletsystem.model.Wallet;
+
+/**
+ * Receives entries while a snapshot or the journal is replayed on startup
+ */
+public interface JournalListener {
+
+    void onTransaction(Transaction transaction);
+
+    void onWallet(Wallet wallet);
+
+    void onUser(User user);
+}
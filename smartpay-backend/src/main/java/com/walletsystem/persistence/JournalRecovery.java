@@ -0,0 +1,110 @@
+package com.walletsystem.persistence;
+
+import com.walletsystem.model.Transaction;
+import com.walletsystem.model.User;
+import com.walletsystem.model.Wallet;
+import com.walletsystem.service.TransactionService;
+import com.walletsystem.service.UserService;
+import com.walletsystem.service.WalletService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilds the in-memory user, wallet and transaction maps on startup
+ * Loads the latest snapshot, then replays only the journal written after it, and
+ * completes cross-shard transfers that were debited but not yet credited
+ * Startup recovery time is exported as wallet.recovery.time, and the journal tail
+ * replayed on top of the snapshot as wallet.recovery.replayed.records.
+ */
+@Component
+public class JournalRecovery {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalRecovery.class);
+
+    @Autowired
+    private TransactionJournal journal;
+
+    @Autowired
+    private SnapshotService snapshotService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private volatile long recoveryMillis;
+    private volatile long replayedRecords;
+
+    @PostConstruct
+    public void recover() {
+        TimeGauge.builder("wallet.recovery.time", this, TimeUnit.MILLISECONDS, JournalRecovery::getRecoveryMillis)
+                .description("Startup recovery time, snapshot load plus journal replay")
+                .register(meterRegistry);
+        Gauge.builder("wallet.recovery.replayed.records", this, JournalRecovery::getReplayedRecords)
+                .description("Journal records replayed on top of the snapshot at startup")
+                .register(meterRegistry);
+        if (!journal.isEnabled()) {
+            return;
+        }
+        long started = System.nanoTime();
+        long[] counts = new long[3];
+
+        JournalListener listener = new JournalListener() {
+            @Override
+            public void onTransaction(Transaction transaction) {
+                transactionService.restoreTransaction(transaction);
+                counts[0]++;
+            }
+
+            @Override
+            public void onWallet(Wallet wallet) {
+                walletService.restoreWallet(wallet);
+                counts[1]++;
+            }
+
+            @Override
+            public void onUser(User user) {
+                userService.restoreUser(user);
+                counts[2]++;
+            }
+        };
+
+        long snapshotPosition = snapshotService.loadLatest(listener);
+        long snapshotRecords = counts[0] + counts[1] + counts[2];
+        journal.recover(snapshotPosition, listener);
+        int settled = walletService.settleRestoredTransfers();
+        snapshotService.start();
+
+        recoveryMillis = (System.nanoTime() - started) / 1_000_000;
+        replayedRecords = counts[0] + counts[1] + counts[2] - snapshotRecords;
+        log.info("Recovered {} transaction, {} wallet and {} user records ({} from the journal tail) in {} ms; "
+                + "settled {} in-flight transfers", counts[0], counts[1], counts[2], replayedRecords, recoveryMillis,
+                settled);
+    }
+
+    /**
+     * Startup recovery time, snapshot load plus journal replay
+     */
+    public long getRecoveryMillis() {
+        return recoveryMillis;
+    }
+
+    public long getReplayedRecords() {
+        return replayedRecords;
+    }
+}
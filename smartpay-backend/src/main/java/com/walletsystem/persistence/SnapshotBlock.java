@@ -0,0 +1,85 @@
+package com.walletsystem.persistence;
+
+import com.walletsystem.model.Transaction;
+import com.walletsystem.model.User;
+import com.walletsystem.model.Wallet;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * A run of length-prefixed snapshot entries encoded off the writer thread
+ * Producers fill blocks in parallel; SnapshotService.writeInitialSnapshot appends them
+ * in order, so encoding cost scales with cores while the file stays one sequential write.
+ */
+public final class SnapshotBlock {
+
+    private ByteBuffer buffer;
+    private int entries;
+
+    public SnapshotBlock(int initialCapacity) {
+        this.buffer = ByteBuffer.allocate(Math.max(initialCapacity, 256));
+    }
+
+    public void user(User user) {
+        entry(out -> {
+            out.put(JournalCodec.ENTRY_USER);
+            JournalCodec.writeUser(out, user);
+        });
+    }
+
+    public void wallet(Wallet wallet) {
+        entry(out -> {
+            out.put(JournalCodec.ENTRY_VERSIONED_WALLET);
+            JournalCodec.writeWallet(out, wallet);
+        });
+    }
+
+    /**
+     * A completed transaction whose creation time equals its timestamp
+     */
+    public void transaction(String transactionId, String senderId, String receiverId, long amount,
+                            Transaction.TransactionType type, String description, long timestampMicros) {
+        entry(out -> {
+            out.put(JournalCodec.ENTRY_TRANSACTION);
+            JournalCodec.writeTransaction(out, transactionId, senderId, receiverId, amount, type,
+                    Transaction.TransactionStatus.COMPLETED, description, timestampMicros, timestampMicros);
+        });
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    /**
+     * The encoded entries, ready to append to a snapshot
+     */
+    ByteBuffer encoded() {
+        ByteBuffer view = buffer.duplicate();
+        view.flip();
+        return view;
+    }
+
+    private void entry(Consumer<ByteBuffer> encoder) {
+        int start = buffer.position();
+        while (true) {
+            try {
+                if (buffer.capacity() - start < 4) {
+                    throw new BufferOverflowException();
+                }
+                buffer.position(start + 4);
+                encoder.accept(buffer);
+                break;
+            } catch (BufferOverflowException e) {
+                ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                buffer.limit(start);
+                grown.put(buffer);
+                buffer = grown;
+            }
+        }
+        buffer.putInt(start, buffer.position() - start - 4);
+        entries++;
+    }
+}
@@ -0,0 +1,424 @@
+package com.walletsystem.persistence;
+
+import com.walletsystem.service.TransactionService;
+import com.walletsystem.service.UserService;
+import com.walletsystem.service.WalletService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Writes periodic binary snapshots of users, wallets and transactions
+ * A snapshot records the journal position taken before it starts reading the
+ * live maps. Maps are read without pausing writers, so the image is fuzzy, but
+ * every change made after that position is replayed from the journal on restart,
+ * and replay is idempotent, so snapshot plus journal tail is always consistent.
+ * File layout: [magic][version][journal position] then [length][entry]...,
+ * a zero length terminator and a CRC32C over everything before it.
+ */
+@Component
+public class SnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotService.class);
+
+    private static final int MAGIC = 0x57534E50;
+    private static final int FORMAT_VERSION = 1;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+    private static final int IO_BUFFER_SIZE = 1 << 20;
+
+    @Value("${wallet.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${wallet.snapshot.dir:${wallet.journal.dir:journal}}")
+    private String directory;
+
+    @Value("${wallet.snapshot.interval-seconds:300}")
+    private long intervalSeconds;
+
+    @Value("${wallet.snapshot.retain:2}")
+    private int retain;
+
+    @Autowired
+    private TransactionJournal journal;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    private ScheduledExecutorService scheduler;
+    private volatile long lastSnapshotPosition = -1;
+    private volatile long lastSnapshotMillis;
+
+    public boolean isEnabled() {
+        return enabled && journal.isEnabled();
+    }
+
+    /**
+     * Load the newest readable snapshot into the listener
+     * Returns the journal position replay should continue from, or 0 without a snapshot
+     */
+    public long loadLatest(JournalListener listener) {
+        if (!isEnabled()) {
+            return 0L;
+        }
+        try {
+            List<Path> snapshots = listSnapshots();
+            for (int i = snapshots.size() - 1; i >= 0; i--) {
+                Path path = snapshots.get(i);
+                if (!verify(path)) {
+                    log.error("Snapshot {} failed its checksum, trying an older one", path);
+                    continue;
+                }
+                long position = load(path, listener);
+                lastSnapshotPosition = position;
+                log.info("Loaded snapshot {}", path.getFileName());
+                return position;
+            }
+            return 0L;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load snapshot", e);
+        }
+    }
+
+    /**
+     * Start periodic snapshots; called once the journal is open
+     */
+    public void start() {
+        if (!isEnabled() || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                takeSnapshot();
+            } catch (RuntimeException e) {
+                log.error("Snapshot failed", e);
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Write a snapshot if the journal moved since the last one
+     */
+    public synchronized Path takeSnapshot() {
+        long position = journal.getWritePosition();
+        if (position == lastSnapshotPosition) {
+            return null;
+        }
+        long started = System.nanoTime();
+        Path dir = Paths.get(directory);
+        Path target = dir.resolve(String.format("%s%016x%s", PREFIX, position, SUFFIX));
+        Path temp = dir.resolve(target.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            SnapshotWriter writer = new SnapshotWriter(channel);
+            writer.header(position);
+            userService.streamAllUsers().forEach(user -> writer.entry(buffer -> {
+                buffer.put(JournalCodec.ENTRY_USER);
+                JournalCodec.writeUser(buffer, user);
+            }));
+            walletService.streamAllWallets().forEach(wallet -> writer.entry(buffer -> {
+                buffer.put(JournalCodec.ENTRY_VERSIONED_WALLET);
+                JournalCodec.writeWallet(buffer, wallet);
+            }));
+            transactionService.streamAllTransactions().forEach(transaction -> writer.entry(buffer -> {
+                buffer.put(JournalCodec.ENTRY_TRANSACTION);
+                JournalCodec.writeTransaction(buffer, transaction);
+            }));
+            writer.finish();
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write snapshot", e);
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            lastSnapshotPosition = position;
+            lastSnapshotMillis = (System.nanoTime() - started) / 1_000_000;
+            log.info("Wrote snapshot {} in {} ms", target.getFileName(), lastSnapshotMillis);
+            compact();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to publish snapshot", e);
+        }
+        return target;
+    }
+
+    /**
+     * Write a snapshot at journal position 0 from pre-encoded blocks, in iteration order
+     * A fresh node whose journal directory is this directory boots from it.
+     * The directory must be empty or not exist, so a live store is never shadowed.
+     */
+    public Path writeInitialSnapshot(Path dir, Iterator<SnapshotBlock> blocks) {
+        Path target = dir.resolve(String.format("%s%016x%s", PREFIX, 0L, SUFFIX));
+        Path temp = dir.resolve(target.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(dir);
+            try (Stream<Path> existing = Files.list(dir)) {
+                if (existing.findAny().isPresent()) {
+                    throw new IllegalStateException("Snapshot directory is not empty: " + dir);
+                }
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                SnapshotWriter writer = new SnapshotWriter(channel);
+                writer.header(0L);
+                while (blocks.hasNext()) {
+                    writer.block(blocks.next().encoded());
+                }
+                writer.finish();
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            if (e instanceof IOException io) {
+                throw new UncheckedIOException("Failed to write snapshot", io);
+            }
+            throw (RuntimeException) e;
+        }
+        log.info("Wrote initial snapshot {}", target);
+        return target;
+    }
+
+    public long getLastSnapshotMillis() {
+        return lastSnapshotMillis;
+    }
+
+    /**
+     * Keep the newest snapshots and drop journal segments none of them need
+     */
+    private void compact() throws IOException {
+        List<Path> snapshots = listSnapshots();
+        int keepFrom = Math.max(0, snapshots.size() - Math.max(1, retain));
+        for (int i = 0; i < keepFrom; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+        journal.truncateBefore(positionOf(snapshots.get(keepFrom)));
+    }
+
+    private boolean verify(Path path) throws IOException {
+        long size = Files.size(path);
+        if (size < 20) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long remaining = size - 4;
+            while (remaining > 0) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), remaining));
+                int read = channel.read(buffer);
+                if (read < 0) {
+                    return false;
+                }
+                crc.update(buffer.array(), 0, read);
+                remaining -= read;
+            }
+            buffer.clear();
+            buffer.limit(4);
+            channel.read(buffer, size - 4);
+            return buffer.getInt(0) == (int) crc.getValue();
+        }
+    }
+
+    private long load(Path path, JournalListener listener) throws IOException {
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, IO_BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IllegalStateException("Not a snapshot file: " + path);
+            }
+            long position = in.readLong();
+            ByteBuffer entry = ByteBuffer.allocate(4096);
+            int length;
+            while ((length = in.readInt()) != 0) {
+                if (entry.capacity() < length) {
+                    entry = ByteBuffer.allocate(Integer.highestOneBit(length) << 1);
+                }
+                in.readFully(entry.array(), 0, length);
+                entry.clear();
+                entry.limit(length);
+                byte type = entry.get();
+                switch (type) {
+                    case JournalCodec.ENTRY_USER:
+                        listener.onUser(JournalCodec.readUser(entry));
+                        break;
+                    case JournalCodec.ENTRY_WALLET:
+                    case JournalCodec.ENTRY_VERSIONED_WALLET:
+                        listener.onWallet(JournalCodec.readWallet(entry, type == JournalCodec.ENTRY_VERSIONED_WALLET));
+                        break;
+                    case JournalCodec.ENTRY_TRANSACTION:
+                        listener.onTransaction(JournalCodec.readTransaction(entry));
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown snapshot entry type: " + type);
+                }
+            }
+            return position;
+        }
+    }
+
+    private List<Path> listSnapshots() throws IOException {
+        Path dir = Paths.get(directory);
+        List<Path> snapshots = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return snapshots;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).forEach(snapshots::add);
+        }
+        snapshots.sort(null);
+        return snapshots;
+    }
+
+    private static long positionOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseUnsignedLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()), 16);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+            // A final snapshot keeps the next startup short
+            takeSnapshot();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Final snapshot failed", e);
+        }
+    }
+
+    /**
+     * Buffers length-prefixed entries and checksums everything it writes
+     */
+    private static final class SnapshotWriter {
+        private final FileChannel channel;
+        private final ByteBuffer out = ByteBuffer.allocate(IO_BUFFER_SIZE);
+        private ByteBuffer scratch = ByteBuffer.allocate(4096);
+        private final CRC32C crc = new CRC32C();
+
+        SnapshotWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void header(long position) {
+            out.putInt(MAGIC);
+            out.putInt(FORMAT_VERSION);
+            out.putLong(position);
+        }
+
+        void entry(Consumer<ByteBuffer> encoder) {
+            while (true) {
+                try {
+                    scratch.clear();
+                    encoder.accept(scratch);
+                    break;
+                } catch (BufferOverflowException e) {
+                    scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+                }
+            }
+            scratch.flip();
+            int length = scratch.remaining();
+            if (out.remaining() < 4 + length) {
+                drain();
+            }
+            if (out.remaining() < 4 + length) {
+                ByteBuffer header = ByteBuffer.allocate(4).putInt(0, length);
+                crc.update(header.array(), 0, 4);
+                crc.update(scratch.array(), 0, length);
+                write(header);
+                write(scratch);
+                return;
+            }
+            out.putInt(length);
+            out.put(scratch);
+        }
+
+        /**
+         * Append entries that are already length-prefixed
+         */
+        void block(ByteBuffer entries) {
+            if (out.remaining() < entries.remaining()) {
+                drain();
+            }
+            if (out.remaining() < entries.remaining()) {
+                crc.update(entries.array(), entries.arrayOffset() + entries.position(), entries.remaining());
+                write(entries);
+                return;
+            }
+            out.put(entries);
+        }
+
+        void finish() {
+            out.putInt(0);
+            drain();
+            ByteBuffer trailer = ByteBuffer.allocate(4).putInt(0, (int) crc.getValue());
+            write(trailer);
+        }
+
+        private void drain() {
+            crc.update(out.array(), 0, out.position());
+            out.flip();
+            write(out);
+            out.clear();
+        }
+
+        private void write(ByteBuffer buffer) {
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
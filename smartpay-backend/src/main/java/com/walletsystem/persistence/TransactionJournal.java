@@ -0,0 +1,500 @@
+package com.walletsystem.persistence;
+
+import com.walletsystem.model.Transaction;
+import com.walletsystem.model.User;
+import com.walletsystem.model.Wallet;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, memory-mapped journal of transactions, wallet states and users
+ * Frames are [payload length][CRC32C][payload] and never span segment files.
+ * A zero length marks the end of the written part of a segment; a checksum
+ * mismatch marks a torn tail, which is cut off during recovery.
+ * Positions are (segment index << 32 | offset within segment).
+ */
+@Component
+public class TransactionJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionJournal.class);
+
+    private static final int FRAME_HEADER = 8;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    @Value("${wallet.journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${wallet.journal.dir:journal}")
+    private String directory;
+
+    @Value("${wallet.journal.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${wallet.journal.fsync:INTERVAL}")
+    private FsyncPolicy fsyncPolicy;
+
+    @Value("${wallet.journal.fsync-interval-ms:10}")
+    private long fsyncIntervalMs;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Object syncLock = new Object();
+    private final ThreadLocal<ByteBuffer> encodeBuffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(4096));
+    private final ThreadLocal<CRC32C> checksums = ThreadLocal.withInitial(CRC32C::new);
+
+    private Path journalDir;
+    private int segmentSize;
+    private FileChannel segmentChannel;
+    private MappedByteBuffer segment;
+    private int segmentIndex;
+    private int segmentOffset;
+    private int syncedOffset;
+    private volatile long writePosition;
+    private volatile long durablePosition;
+    private volatile boolean open;
+    private ScheduledExecutorService flusher;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Replay every frame at or after the given position, then open the journal for appends
+     * Called once on startup, before any request is served
+     */
+    public void recover(long fromPosition, JournalListener listener) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            journalDir = Paths.get(directory);
+            Files.createDirectories(journalDir);
+            segmentSize = segmentSizeMb * 1024 * 1024;
+
+            List<Integer> indexes = listSegments();
+            int tailIndex = segmentIndexOf(fromPosition);
+            int tailOffset = offsetOf(fromPosition);
+            boolean torn = false;
+            ByteBuffer frame = ByteBuffer.allocate(4096);
+
+            for (int index : indexes) {
+                if (index < segmentIndexOf(fromPosition)) {
+                    continue;
+                }
+                try (FileChannel channel = FileChannel.open(segmentPath(index), StandardOpenOption.READ)) {
+                    MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    int offset = index == segmentIndexOf(fromPosition) ? offsetOf(fromPosition) : 0;
+
+                    while (offset + FRAME_HEADER <= mapped.limit()) {
+                        int length = mapped.getInt(offset);
+                        if (length == 0) {
+                            break;
+                        }
+                        if (length < 0 || offset + FRAME_HEADER + length > mapped.limit()) {
+                            torn = true;
+                            break;
+                        }
+                        if (frame.capacity() < length) {
+                            frame = ByteBuffer.allocate(Integer.highestOneBit(length) << 1);
+                        }
+                        frame.clear();
+                        mapped.get(offset + FRAME_HEADER, frame.array(), 0, length);
+                        frame.limit(length);
+
+                        CRC32C crc = checksums.get();
+                        crc.reset();
+                        crc.update(frame.array(), 0, length);
+                        if ((int) crc.getValue() != mapped.getInt(offset + 4)) {
+                            torn = true;
+                            break;
+                        }
+                        decode(frame, listener);
+                        offset += FRAME_HEADER + length;
+                    }
+
+                    tailIndex = index;
+                    tailOffset = offset;
+                    if (torn) {
+                        log.warn("Journal segment {} has a torn tail at offset {}, truncating", index, offset);
+                        quarantineAfter(index, indexes);
+                        break;
+                    }
+                }
+            }
+
+            openSegment(tailIndex, tailOffset, torn);
+            writePosition = position(tailIndex, tailOffset);
+            durablePosition = writePosition;
+            open = true;
+
+            if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+                flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "journal-flusher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                flusher.scheduleWithFixedDelay(this::flush, fsyncIntervalMs, fsyncIntervalMs, TimeUnit.MILLISECONDS);
+            }
+            log.info("Journal opened at segment {} offset {} (fsync {})", tailIndex, tailOffset, fsyncPolicy);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover journal", e);
+        }
+    }
+
+    /**
+     * Append a transaction record
+     */
+    public long appendTransaction(Transaction transaction) {
+        if (!open) {
+            return writePosition;
+        }
+        ByteBuffer buffer = encodeBuffers.get();
+        while (true) {
+            try {
+                buffer.clear();
+                buffer.put(JournalCodec.ENTRY_TRANSACTION);
+                JournalCodec.writeTransaction(buffer, transaction);
+                break;
+            } catch (BufferOverflowException e) {
+                buffer = grow(buffer);
+            }
+        }
+        return append(buffer);
+    }
+
+    /**
+     * Append a user record
+     */
+    public long appendUser(User user) {
+        if (!open) {
+            return writePosition;
+        }
+        ByteBuffer buffer = encodeBuffers.get();
+        while (true) {
+            try {
+                buffer.clear();
+                buffer.put(JournalCodec.ENTRY_USER);
+                JournalCodec.writeUser(buffer, user);
+                break;
+            } catch (BufferOverflowException e) {
+                buffer = grow(buffer);
+            }
+        }
+        return append(buffer);
+    }
+
+    /**
+     * Append the current state of one or more wallets as a single atomic frame
+     * Each state is read as it is encoded; replay keeps the highest version per wallet
+     */
+    public long appendWallets(Wallet... wallets) {
+        if (!open) {
+            return writePosition;
+        }
+        ByteBuffer buffer = encodeBuffers.get();
+        while (true) {
+            try {
+                buffer.clear();
+                for (Wallet wallet : wallets) {
+                    buffer.put(JournalCodec.ENTRY_VERSIONED_WALLET);
+                    JournalCodec.writeWallet(buffer, wallet);
+                }
+                break;
+            } catch (BufferOverflowException e) {
+                buffer = grow(buffer);
+            }
+        }
+        return append(buffer);
+    }
+
+    /**
+     * Append wallet states and the transactions that moved them as a single atomic frame,
+     * so replay never sees a balance change without its transaction or the reverse
+     * Does not wait for the fsync policy: callers release their wallet locks first and
+     * then call awaitDurable with the returned position before acknowledging the change.
+     */
+    public long appendLedger(Collection<Wallet> wallets, Collection<Transaction> transactions) {
+        if (!open) {
+            return writePosition;
+        }
+        ByteBuffer buffer = encodeBuffers.get();
+        while (true) {
+            try {
+                buffer.clear();
+                for (Wallet wallet : wallets) {
+                    buffer.put(JournalCodec.ENTRY_VERSIONED_WALLET);
+                    JournalCodec.writeWallet(buffer, wallet);
+                }
+                for (Transaction transaction : transactions) {
+                    buffer.put(JournalCodec.ENTRY_TRANSACTION);
+                    JournalCodec.writeTransaction(buffer, transaction);
+                }
+                break;
+            } catch (BufferOverflowException e) {
+                buffer = grow(buffer);
+            }
+        }
+        return write(buffer);
+    }
+
+    /**
+     * Wait until everything up to the given position is durable under the fsync policy
+     * Only ALWAYS waits; with INTERVAL and OS the write is acknowledged once it is mapped
+     */
+    public void awaitDurable(long position) {
+        if (open && fsyncPolicy == FsyncPolicy.ALWAYS) {
+            syncTo(position);
+        }
+    }
+
+    public long getWritePosition() {
+        return writePosition;
+    }
+
+    Path getDirectory() {
+        return journalDir;
+    }
+
+    /**
+     * Delete segments that lie wholly before the given position
+     * Used once a snapshot covers everything up to that position
+     */
+    public void truncateBefore(long position) {
+        if (!open) {
+            return;
+        }
+        int keepFrom = Math.min(segmentIndexOf(position), segmentIndex);
+        try {
+            for (int index : listSegments()) {
+                if (index < keepFrom) {
+                    Files.deleteIfExists(segmentPath(index));
+                    log.info("Deleted journal segment {} covered by snapshot", index);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to delete old journal segments", e);
+        }
+    }
+
+    private long append(ByteBuffer payload) {
+        long end = write(payload);
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            syncTo(end);
+        }
+        return end;
+    }
+
+    private long write(ByteBuffer payload) {
+        payload.flip();
+        int length = payload.remaining();
+        if (FRAME_HEADER + length > segmentSize) {
+            throw new IllegalArgumentException("Journal record too large: " + length + " bytes");
+        }
+        CRC32C crc = checksums.get();
+        crc.reset();
+        crc.update(payload.array(), 0, length);
+        int checksum = (int) crc.getValue();
+
+        long end;
+        appendLock.lock();
+        try {
+            if (segmentOffset + FRAME_HEADER + length > segmentSize) {
+                rollSegment();
+            }
+            int offset = segmentOffset;
+            segment.put(offset + FRAME_HEADER, payload.array(), 0, length);
+            segment.putInt(offset + 4, checksum);
+            // Length goes last so a half-written frame reads as end of segment
+            segment.putInt(offset, length);
+            segmentOffset = offset + FRAME_HEADER + length;
+            end = position(segmentIndex, segmentOffset);
+            writePosition = end;
+        } finally {
+            appendLock.unlock();
+        }
+        return end;
+    }
+
+    /**
+     * Group commit: the first waiter forces everything written so far,
+     * later waiters covered by that force return without syncing again
+     */
+    private void syncTo(long position) {
+        if (durablePosition >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durablePosition >= position) {
+                return;
+            }
+            flush();
+        }
+    }
+
+    private void flush() {
+        synchronized (syncLock) {
+            MappedByteBuffer target;
+            int from;
+            int to;
+            long upTo;
+            appendLock.lock();
+            try {
+                upTo = writePosition;
+                if (upTo <= durablePosition) {
+                    return;
+                }
+                target = segment;
+                from = syncedOffset;
+                to = segmentOffset;
+                syncedOffset = to;
+            } finally {
+                appendLock.unlock();
+            }
+            if (to > from) {
+                target.force(from, to - from);
+            }
+            durablePosition = upTo;
+        }
+    }
+
+    private void rollSegment() {
+        try {
+            segment.force();
+            segmentChannel.close();
+            openSegment(segmentIndex + 1, 0, false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll journal segment", e);
+        }
+    }
+
+    private void openSegment(int index, int offset, boolean clearTail) throws IOException {
+        segmentChannel = FileChannel.open(segmentPath(index),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        if (clearTail) {
+            // Wipe the torn frame so stale bytes are never mistaken for records
+            for (int i = offset; i < segmentSize; i++) {
+                segment.put(i, (byte) 0);
+            }
+            segment.force();
+        }
+        segmentIndex = index;
+        segmentOffset = offset;
+        syncedOffset = offset;
+    }
+
+    private void decode(ByteBuffer frame, JournalListener listener) {
+        while (frame.hasRemaining()) {
+            byte type = frame.get();
+            switch (type) {
+                case JournalCodec.ENTRY_TRANSACTION:
+                    listener.onTransaction(JournalCodec.readTransaction(frame));
+                    break;
+                case JournalCodec.ENTRY_WALLET:
+                case JournalCodec.ENTRY_VERSIONED_WALLET:
+                    listener.onWallet(JournalCodec.readWallet(frame, type == JournalCodec.ENTRY_VERSIONED_WALLET));
+                    break;
+                case JournalCodec.ENTRY_USER:
+                    listener.onUser(JournalCodec.readUser(frame));
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown journal entry type: " + type);
+            }
+        }
+    }
+
+    private void quarantineAfter(int index, List<Integer> indexes) throws IOException {
+        for (int later : indexes) {
+            if (later > index) {
+                Path path = segmentPath(later);
+                Files.move(path, path.resolveSibling(path.getFileName() + ".corrupt"), StandardCopyOption.REPLACE_EXISTING);
+                log.warn("Moved unreadable journal segment {} aside", path);
+            }
+        }
+    }
+
+    List<Integer> listSegments() throws IOException {
+        List<Integer> indexes = new ArrayList<>();
+        try (Stream<Path> files = Files.list(journalDir)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> indexes.add(Integer.parseInt(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        indexes.sort(null);
+        return indexes;
+    }
+
+    Path segmentPath(int index) {
+        return journalDir.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private ByteBuffer grow(ByteBuffer buffer) {
+        ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+        encodeBuffers.set(larger);
+        return larger;
+    }
+
+    static long position(int segmentIndex, int offset) {
+        return ((long) segmentIndex << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    static int segmentIndexOf(long position) {
+        return (int) (position >>> 32);
+    }
+
+    static int offsetOf(long position) {
+        return (int) position;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!open) {
+            return;
+        }
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        if (fsyncPolicy != FsyncPolicy.OS) {
+            flush();
+        }
+        appendLock.lock();
+        try {
+            open = false;
+            segmentChannel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close journal segment", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Enum for when journal writes are forced to disk
+    public enum FsyncPolicy {
+        ALWAYS, INTERVAL, OS
+    }
+}
@@ -0,0 +1,449 @@
+package com.walletsystem.service;
+
+import com.walletsystem.model.Account;
+import com.walletsystem.model.Money;
+import com.walletsystem.model.Transaction;
+import com.walletsystem.model.User;
+import com.walletsystem.model.Wallet;
+import com.walletsystem.model.dto.DatasetReport;
+import com.walletsystem.model.dto.DatasetRequest;
+import com.walletsystem.persistence.SnapshotBlock;
+import com.walletsystem.persistence.SnapshotService;
+import com.walletsystem.utils.EpochMicros;
+import com.walletsystem.utils.IdGenerator;
+import com.walletsystem.utils.PasswordHasher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Dataset Service generating large, reproducible synthetic datasets for capacity testing
+ * Records are produced in fixed-size chunks, each with its own SplittableRandom derived
+ * from the seed and the chunk number, so the output depends only on the request, never
+ * on thread count or scheduling. IDs, timestamps and every random choice are derived
+ * from record indexes; nothing reads the clock or a shared random source.
+ * Chunks go either straight into the in-memory stores (through the same restore path as
+ * journal recovery, so nothing is journaled) or, encoded in parallel, into a snapshot
+ * file that a fresh node loads at startup. Snapshot directories resolve under the configured
+ * dataset directory, and the in-memory target is off unless enabled because its records
+ * bypass the journal.
+ * Demonstrates encapsulation and business logic
+ */
+@Service
+public class DatasetService {
+
+    private static final Logger log = LoggerFactory.getLogger(DatasetService.class);
+
+    private static final int CHUNK = 1 << 16;
+    private static final int IDS_PER_MILLI = 1 << IdGenerator.SEQUENCE_BITS;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final String TRANSFER_DESCRIPTION = "Fund transfer";
+    private static final String MERCHANT_DESCRIPTION = "Merchant payment";
+    private static final String CREDIT_DESCRIPTION = "Funds added to wallet";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private SnapshotService snapshotService;
+
+    @Value("${wallet.dataset.dir:datasets}")
+    private String baseDirectory;
+
+    @Value("${wallet.dataset.memory-enabled:false}")
+    private boolean memoryEnabled;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Generate the dataset described by the request into its target
+     * Throws if the request is inconsistent or another load is running
+     */
+    public DatasetReport generate(DatasetRequest request) {
+        Plan plan = new Plan(request);
+        if (request.getTarget() == DatasetRequest.Target.MEMORY && !memoryEnabled) {
+            throw new RuntimeException("The MEMORY target is disabled (wallet.dataset.memory-enabled)");
+        }
+        Path directory = request.getTarget() == DatasetRequest.Target.SNAPSHOT ? resolve(request.getDirectory()) : null;
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("A dataset load is already running");
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        int threads = request.getThreads() > 0 ? Math.min(request.getThreads(), cores) : cores;
+        AtomicInteger threadIds = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "dataset-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        try {
+            String path = null;
+            if (request.getTarget() == DatasetRequest.Target.SNAPSHOT) {
+                Iterator<SnapshotBlock> blocks = inOrder(pool, plan.chunks(), threads * 2, chunk -> {
+                    SnapshotBlock block = new SnapshotBlock(CHUNK * 96);
+                    plan.generate(chunk, new BlockSink(block));
+                    return block;
+                });
+                path = snapshotService.writeInitialSnapshot(directory, blocks).toString();
+            } else {
+                Sink sink = new StoreSink();
+                Iterator<Integer> done = inOrder(pool, plan.chunks(), threads * 2, chunk -> {
+                    plan.generate(chunk, sink);
+                    return chunk;
+                });
+                while (done.hasNext()) {
+                    done.next();
+                }
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            log.info("Generated {} users and {} transactions (seed {}) into {} in {} ms",
+                    plan.users, plan.transactions, plan.seed, request.getTarget(), millis);
+            return new DatasetReport(request.getTarget(), path, plan.users, plan.users, plan.transactions, millis);
+        } finally {
+            pool.shutdownNow();
+            running.set(false);
+        }
+    }
+
+    /**
+     * Snapshot directory named by a request, inside the configured dataset directory
+     * Throws if the name is absolute or climbs out of it
+     */
+    private Path resolve(String directory) {
+        if (directory == null || directory.isBlank()) {
+            throw new RuntimeException("Directory is required");
+        }
+        Path base = Paths.get(baseDirectory).toAbsolutePath().normalize();
+        Path relative = Paths.get(directory);
+        Path resolved = base.resolve(relative).normalize();
+        if (relative.isAbsolute() || !resolved.startsWith(base) || resolved.equals(base)) {
+            throw new RuntimeException("Directory must be a subdirectory of the dataset directory");
+        }
+        return resolved;
+    }
+
+    /**
+     * Results of tasks 0..count-1 in task order, keeping at most window tasks in flight
+     */
+    private static <T> Iterator<T> inOrder(ExecutorService pool, int count, int window, IntFunction<T> task) {
+        return new Iterator<T>() {
+            private final ArrayDeque<Future<T>> pending = new ArrayDeque<>(window);
+            private int submitted;
+
+            @Override
+            public boolean hasNext() {
+                fill();
+                return !pending.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                fill();
+                Future<T> head = pending.poll();
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    return head.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Dataset load interrupted");
+                } catch (ExecutionException e) {
+                    pending.forEach(future -> future.cancel(true));
+                    throw e.getCause() instanceof RuntimeException cause ? cause
+                            : new RuntimeException("Dataset chunk failed", e.getCause());
+                }
+            }
+
+            private void fill() {
+                while (pending.size() < window && submitted < count) {
+                    int chunk = submitted++;
+                    pending.add(pool.submit(() -> task.apply(chunk)));
+                }
+            }
+        };
+    }
+
+    /**
+     * Receives generated records; one instance may be called from many chunks at once
+     */
+    private interface Sink {
+        void user(User user, Wallet wallet);
+
+        void transaction(String transactionId, String senderId, String receiverId, long amount,
+                         Transaction.TransactionType type, String description, long timestampMicros);
+    }
+
+    private final class StoreSink implements Sink {
+        @Override
+        public void user(User user, Wallet wallet) {
+            userService.restoreUser(user);
+            walletService.restoreWallet(wallet);
+        }
+
+        @Override
+        public void transaction(String transactionId, String senderId, String receiverId, long amount,
+                                Transaction.TransactionType type, String description, long timestampMicros) {
+            Transaction transaction = new Transaction(transactionId, senderId, receiverId, amount, type, description);
+            transaction.setTimestamp(EpochMicros.toDateTime(timestampMicros));
+            transaction.setCreatedAt(transaction.getTimestamp());
+            transaction.setUpdatedAt(transaction.getTimestamp());
+            transactionService.restoreTransaction(transaction);
+        }
+    }
+
+    private static final class BlockSink implements Sink {
+        private final SnapshotBlock block;
+
+        BlockSink(SnapshotBlock block) {
+            this.block = block;
+        }
+
+        @Override
+        public void user(User user, Wallet wallet) {
+            block.user(user);
+            block.wallet(wallet);
+        }
+
+        @Override
+        public void transaction(String transactionId, String senderId, String receiverId, long amount,
+                                Transaction.TransactionType type, String description, long timestampMicros) {
+            block.transaction(transactionId, senderId, receiverId, amount, type, description, timestampMicros);
+        }
+    }
+
+    /**
+     * A validated request with everything derived from it; generates any chunk independently
+     * Chunks 0..userChunks-1 hold users and their wallets, the rest hold transactions.
+     */
+    private static final class Plan {
+        final long seed;
+        final int users;
+        final long transactions;
+        final int nodeId;
+        final long windowStartMillis;
+        final long windowMillis;
+        final long userBaseMillis;
+        final int userChunks;
+        final int transactionChunks;
+        final double creditShare;
+        final double merchantShare;
+        final long userMultiplier;
+        final long userOffset;
+        final String[] merchantIds;
+        final ZipfSampler activity;
+        final ZipfSampler merchantPopularity;
+        final AmountHistogram amounts;
+        // Every generated user shares one hash of "password", salted from the seed so output stays reproducible
+        final String passwordHash;
+
+        Plan(DatasetRequest request) {
+            if (request.getCreditShare() + request.getMerchantShare() > 1.0) {
+                throw new RuntimeException("Credit and merchant shares must add up to at most 1");
+            }
+            if (request.getTarget() == null) {
+                throw new RuntimeException("Target is required");
+            }
+            this.seed = request.getSeed();
+            this.users = request.getUsers();
+            this.transactions = request.getTransactions();
+            this.nodeId = request.getNodeId();
+            this.creditShare = request.getCreditShare();
+            this.merchantShare = request.getMerchantShare();
+            this.passwordHash = PasswordHasher.hash("password",
+                    ByteBuffer.allocate(16).putLong(seed).putLong(mix(seed)).array());
+
+            LocalDate end = request.getEndDate() != null ? request.getEndDate() : LocalDate.now();
+            this.windowStartMillis = EpochMicros.of(end.minusDays(request.getDays() - 1L).atStartOfDay()) / 1_000;
+            this.windowMillis = request.getDays() * MILLIS_PER_DAY;
+            // Users are created in the milliseconds just before the window
+            this.userBaseMillis = windowStartMillis - ((users + IDS_PER_MILLI - 1) / IDS_PER_MILLI);
+            if (userBaseMillis < IdGenerator.EPOCH_MILLIS) {
+                throw new RuntimeException("The dataset must start after " + LocalDate.of(2024, 1, 1));
+            }
+            // Each millisecond holds at most IDS_PER_MILLI IDs; keep a margin for rounding
+            if (transactions > windowMillis * (IDS_PER_MILLI - 16)) {
+                throw new RuntimeException("Too many transactions for " + request.getDays() + " days");
+            }
+
+            this.userChunks = (users + CHUNK - 1) / CHUNK;
+            long chunks = (transactions + CHUNK - 1) / CHUNK;
+            if (userChunks + chunks > Integer.MAX_VALUE) {
+                throw new RuntimeException("Too many transactions");
+            }
+            this.transactionChunks = (int) chunks;
+
+            // Spread popularity ranks over user indexes so the busiest users are not all adjacent
+            long multiplier = Math.floorMod(mix(seed), (long) users) | 1;
+            while (BigInteger.valueOf(multiplier).gcd(BigInteger.valueOf(users)).intValue() != 1) {
+                multiplier = (multiplier + 2) % users;
+            }
+            this.userMultiplier = users == 1 ? 1 : multiplier;
+            this.userOffset = Math.floorMod(mix(~seed), (long) users);
+
+            this.merchantIds = new String[request.getMerchants()];
+            for (int i = 0; i < merchantIds.length; i++) {
+                merchantIds[i] = "MERCHANT" + i;
+            }
+            this.activity = new ZipfSampler(users, request.getActivityExponent());
+            this.merchantPopularity = new ZipfSampler(merchantIds.length, request.getMerchantExponent());
+            this.amounts = new AmountHistogram(request.getAmounts());
+        }
+
+        int chunks() {
+            return userChunks + transactionChunks;
+        }
+
+        void generate(int chunk, Sink sink) {
+            SplittableRandom random = new SplittableRandom(mix(seed ^ mix(chunk + 1L)));
+            if (chunk < userChunks) {
+                generateUsers(chunk, random, sink);
+            } else {
+                generateTransactions(chunk - userChunks, random, sink);
+            }
+        }
+
+        private void generateUsers(int chunk, SplittableRandom random, Sink sink) {
+            int from = chunk * CHUNK;
+            int to = Math.min(users, from + CHUNK);
+            for (int j = from; j < to; j++) {
+                long millis = userBaseMillis + j / IDS_PER_MILLI;
+                String userId = userId(j);
+                User user = new User(userId, "user" + j, "user" + j + "@example.com", passwordHash);
+                user.setCreatedAt(EpochMicros.toDateTime(millis * 1_000));
+                user.setUpdatedAt(user.getCreatedAt());
+
+                long balance = random.nextLong(Money.ofMajor(1_000), Money.ofMajor(10_000));
+                Wallet wallet = new Wallet(IdGenerator.format("WLT", IdGenerator.compose(millis, nodeId, j)),
+                        userId, balance, "Main Wallet");
+                wallet.restoreState(new Account.BalanceState(balance, 0, millis * 1_000));
+                sink.user(user, wallet);
+            }
+        }
+
+        private void generateTransactions(int chunk, SplittableRandom random, Sink sink) {
+            long from = (long) chunk * CHUNK;
+            long to = Math.min(transactions, from + CHUNK);
+            double millisPerTransaction = (double) windowMillis / transactions;
+            for (long i = from; i < to; i++) {
+                // Evenly spaced in time, so a millisecond never holds more IDs than its sequence allows
+                long millis = windowStartMillis + (long) (i * millisPerTransaction);
+                String transactionId = IdGenerator.format("TXN", IdGenerator.compose(millis, nodeId, (int) i));
+                long micros = millis * 1_000 + random.nextInt(1_000);
+                long amount = amounts.sample(random);
+
+                double kind = random.nextDouble();
+                if (kind < creditShare) {
+                    sink.transaction(transactionId, "SYSTEM", userId(activeUser(random)), amount,
+                            Transaction.TransactionType.CREDIT, CREDIT_DESCRIPTION, micros);
+                } else if (kind < creditShare + merchantShare) {
+                    sink.transaction(transactionId, userId(activeUser(random)),
+                            merchantIds[merchantPopularity.sample(random) - 1], amount,
+                            Transaction.TransactionType.DEBIT, MERCHANT_DESCRIPTION, micros);
+                } else {
+                    int sender = activeUser(random);
+                    int receiver = activeUser(random);
+                    while (receiver == sender && users > 1) {
+                        receiver = activeUser(random);
+                    }
+                    sink.transaction(transactionId, userId(sender), userId(receiver), amount,
+                            Transaction.TransactionType.TRANSFER, TRANSFER_DESCRIPTION, micros);
+                }
+            }
+        }
+
+        // User index for the next Zipf-distributed activity rank
+        private int activeUser(SplittableRandom random) {
+            return (int) (((activity.sample(random) - 1L) * userMultiplier + userOffset) % users);
+        }
+
+        private String userId(int j) {
+            return IdGenerator.format("USR", IdGenerator.compose(userBaseMillis + j / IDS_PER_MILLI, nodeId, j));
+        }
+    }
+
+    /**
+     * Weighted amount ranges in major units, written "low-high:weight,...", drawn log-uniformly within a range
+     */
+    private static final class AmountHistogram {
+        private final double[] cumulative;
+        private final double[] logLow;
+        private final double[] logHigh;
+
+        AmountHistogram(String spec) {
+            if (spec == null || spec.isBlank()) {
+                throw new RuntimeException("Amount histogram is required");
+            }
+            String[] buckets = spec.split(",");
+            cumulative = new double[buckets.length];
+            logLow = new double[buckets.length];
+            logHigh = new double[buckets.length];
+            double total = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                try {
+                    String[] rangeAndWeight = buckets[i].trim().split(":");
+                    String[] range = rangeAndWeight[0].split("-");
+                    long low = Money.ofMajor(Double.parseDouble(range[0].trim()));
+                    long high = Money.ofMajor(Double.parseDouble(range[1].trim()));
+                    double weight = Double.parseDouble(rangeAndWeight[1].trim());
+                    if (low <= 0 || high < low || weight < 0) {
+                        throw new IllegalArgumentException();
+                    }
+                    logLow[i] = Math.log(low);
+                    logHigh[i] = Math.log(high);
+                    total += weight;
+                    cumulative[i] = total;
+                } catch (RuntimeException e) {
+                    throw new RuntimeException("Invalid amount bucket '" + buckets[i].trim()
+                            + "', expected low-high:weight with 0 < low <= high");
+                }
+            }
+            if (total <= 0) {
+                throw new RuntimeException("Amount histogram weights must add up to more than 0");
+            }
+        }
+
+        long sample(SplittableRandom random) {
+            double u = random.nextDouble() * cumulative[cumulative.length - 1];
+            int bucket = 0;
+            while (bucket < cumulative.length - 1 && u >= cumulative[bucket]) {
+                bucket++;
+            }
+            double logAmount = logLow[bucket] + random.nextDouble() * (logHigh[bucket] - logLow[bucket]);
+            return Math.max(1, Math.round(Math.exp(logAmount)));
+        }
+    }
+
+    // MurmurHash3 finalizer: spreads nearby seeds and chunk numbers into unrelated random streams
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
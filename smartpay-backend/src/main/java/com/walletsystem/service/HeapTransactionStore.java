@@ -0,0 +1,145 @@
+package com.walletsystem.service;
+
+import com.walletsystem.model.Transaction;
+import com.walletsystem.utils.EpochMicros;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Transaction store holding Transaction objects on the heap
+ * A concurrent map by ID plus skip-list indexes per user, type and status and store-wide
+ */
+final class HeapTransactionStore implements TransactionStore {
+
+    private final Map<String, Transaction> transactions = new ConcurrentHashMap<>();
+    // Per-user transaction IDs, kept newest first on insert
+    private final Map<String, TransactionTimeIndex> userTransactions = new ConcurrentHashMap<>();
+    // Store-wide secondary indexes, newest first; the enum maps are filled once and never resized
+    private final TransactionTimeIndex timeIndex = new TransactionTimeIndex();
+    private final Map<Transaction.TransactionType, TransactionTimeIndex> typeIndex =
+            new EnumMap<>(Transaction.TransactionType.class);
+    private final Map<Transaction.TransactionStatus, TransactionTimeIndex> statusIndex =
+            new EnumMap<>(Transaction.TransactionStatus.class);
+
+    HeapTransactionStore() {
+        for (Transaction.TransactionType type : Transaction.TransactionType.values()) {
+            typeIndex.put(type, new TransactionTimeIndex());
+        }
+        for (Transaction.TransactionStatus status : Transaction.TransactionStatus.values()) {
+            statusIndex.put(status, new TransactionTimeIndex());
+        }
+    }
+
+    @Override
+    public Transaction put(Transaction transaction) {
+        Transaction previous = transactions.put(transaction.getTransactionId(), transaction);
+        if (previous != null && previous != transaction) {
+            unindex(previous);
+        }
+
+        long micros = EpochMicros.of(transaction.getTimestamp());
+        String transactionId = transaction.getTransactionId();
+        timeIndex.add(micros, transactionId);
+        if (transaction.getType() != null) {
+            typeIndex.get(transaction.getType()).add(micros, transactionId);
+        }
+        if (transaction.getStatus() != null) {
+            statusIndex.get(transaction.getStatus()).add(micros, transactionId);
+        }
+        if (transaction.getSenderId() != null) {
+            userTransactions.computeIfAbsent(transaction.getSenderId(), k -> new TransactionTimeIndex())
+                    .add(micros, transactionId);
+        }
+        if (transaction.getReceiverId() != null) {
+            userTransactions.computeIfAbsent(transaction.getReceiverId(), k -> new TransactionTimeIndex())
+                    .add(micros, transactionId);
+        }
+        return previous;
+    }
+
+    /**
+     * Drop the index entries of a transaction that was replaced under the same ID
+     */
+    private void unindex(Transaction transaction) {
+        long micros = EpochMicros.of(transaction.getTimestamp());
+        String transactionId = transaction.getTransactionId();
+        timeIndex.remove(micros, transactionId);
+        if (transaction.getType() != null) {
+            typeIndex.get(transaction.getType()).remove(micros, transactionId);
+        }
+        if (transaction.getStatus() != null) {
+            statusIndex.get(transaction.getStatus()).remove(micros, transactionId);
+        }
+        for (String userId : new String[] {transaction.getSenderId(), transaction.getReceiverId()}) {
+            TransactionTimeIndex index = userId == null ? null : userTransactions.get(userId);
+            if (index != null) {
+                index.remove(micros, transactionId);
+            }
+        }
+    }
+
+    @Override
+    public Transaction get(String transactionId) {
+        return transactions.get(transactionId);
+    }
+
+    @Override
+    public boolean contains(String transactionId) {
+        return transactions.containsKey(transactionId);
+    }
+
+    @Override
+    public int size() {
+        return transactions.size();
+    }
+
+    @Override
+    public Stream<Transaction> stream() {
+        return transactions.values().stream();
+    }
+
+    @Override
+    public int userCount(String userId) {
+        TransactionTimeIndex index = userTransactions.get(userId);
+        return index == null ? 0 : index.size();
+    }
+
+    @Override
+    public Stream<Transaction> scan(String userId, Transaction.TransactionType type,
+                                    Transaction.TransactionStatus status, TransactionTimeIndex.Key after,
+                                    long fromMicros, long toMicros) {
+        TransactionTimeIndex index;
+        if (userId != null) {
+            index = userTransactions.get(userId);
+            if (index == null) {
+                return Stream.empty();
+            }
+        } else if (type != null && status != null) {
+            // Walk the smaller index and check the other attribute on each hit
+            TransactionTimeIndex byType = typeIndex.get(type);
+            TransactionTimeIndex byStatus = statusIndex.get(status);
+            index = byType.size() <= byStatus.size() ? byType : byStatus;
+        } else if (type != null) {
+            index = typeIndex.get(type);
+        } else if (status != null) {
+            index = statusIndex.get(status);
+        } else {
+            index = timeIndex;
+        }
+
+        Stream<Transaction> source = index.scan(after, fromMicros, toMicros)
+                .map(key -> transactions.get(key.transactionId))
+                .filter(Objects::nonNull);
+        if (type != null) {
+            source = source.filter(transaction -> transaction.getType() == type);
+        }
+        if (status != null) {
+            source = source.filter(transaction -> transaction.getStatus() == status);
+        }
+        return source;
+    }
+}
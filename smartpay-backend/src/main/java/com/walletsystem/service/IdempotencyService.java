@@ -0,0 +1,318 @@
+package com.walletsystem.service;
+
+import com.walletsystem.model.dto.ApiResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency Service replaying the first response for a repeated Idempotency-Key
+ * Keys are scoped by operation and user. An entry joins a FIFO list, and its TTL starts,
+ * when its response completes; entries share one TTL, so list order is expiry order and
+ * the list drives both TTL and size eviction in O(1).
+ * Concurrent duplicates wait on the in-flight execution instead of running again;
+ * in-flight entries are not on the list and never evicted, so the cache may briefly
+ * exceed its capacity by the number of requests in flight.
+ * Demonstrates encapsulation and business logic
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final int MAX_KEY_LENGTH = 255;
+
+    // Rough per-entry footprint (map node, entry, future, response) excluding the key
+    private static final int ENTRY_OVERHEAD_BYTES = 512;
+
+    @Value("${wallet.idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    @Value("${wallet.idempotency.max-entries:100000}")
+    private int maxEntries;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Completed entries in completion (and so expiry) order, a doubly linked list through the
+    // entries themselves so an entry dropped early is unlinked in O(1); guarded by orderLock
+    private final ReentrantLock orderLock = new ReentrantLock();
+    private Entry oldest;
+    private Entry newest;
+    private int linked;
+    private final AtomicLong estimatedBytes = new AtomicLong();
+
+    private Counter hits;
+    private Counter misses;
+    private Counter coalesced;
+    private Counter conflicts;
+    private Counter evictions;
+
+    @PostConstruct
+    public void registerMetrics() {
+        hits = requestCounter("hit");
+        misses = requestCounter("miss");
+        coalesced = requestCounter("coalesced");
+        conflicts = requestCounter("conflict");
+        evictions = Counter.builder("wallet.idempotency.evictions")
+                .description("Idempotency entries evicted by TTL or capacity")
+                .register(meterRegistry);
+        Gauge.builder("wallet.idempotency.entries", entries, Map::size)
+                .description("Idempotency entries currently cached")
+                .register(meterRegistry);
+        Gauge.builder("wallet.idempotency.memory", estimatedBytes, AtomicLong::get)
+                .description("Approximate memory held by cached idempotency entries")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    private Counter requestCounter(String result) {
+        return Counter.builder("wallet.idempotency.requests")
+                .description("Requests carrying an Idempotency-Key, by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run the action once per (operation, user, key) and replay its response afterwards
+     * Without a key the action just runs. The fingerprint identifies the request body;
+     * reusing a key with a different body is rejected with 422. Server errors and 429s
+     * are not cached, so those requests can be retried under the same key.
+     * Demonstrates encapsulation and business logic
+     */
+    public <T> ResponseEntity<ApiResponse<T>> execute(String operation, String userId, String key, long fingerprint,
+                                                      Supplier<ResponseEntity<ApiResponse<T>>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        return await(executeAsync(operation, userId, key, fingerprint,
+                () -> CompletableFuture.completedFuture(action.get())));
+    }
+
+    /**
+     * Asynchronous form of execute: duplicates of an in-flight request complete with
+     * its response without blocking a thread
+     * Demonstrates encapsulation and business logic
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<ResponseEntity<ApiResponse<T>>> executeAsync(
+            String operation, String userId, String key, long fingerprint,
+            Supplier<CompletableFuture<ResponseEntity<ApiResponse<T>>>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String cacheKey = operation + ':' + userId + ':' + key;
+        while (true) {
+            long now = System.nanoTime();
+            Entry existing = entries.get(cacheKey);
+            if (existing != null && existing.isExpired(now) && existing.result.isDone()) {
+                discard(existing);
+                existing = null;
+            }
+
+            if (existing == null) {
+                Entry created = new Entry(cacheKey, fingerprint);
+                if (entries.putIfAbsent(cacheKey, created) != null) {
+                    continue;
+                }
+                estimatedBytes.addAndGet(created.bytes);
+                misses.increment();
+                run(created, (Supplier<? extends CompletableFuture<? extends ResponseEntity<?>>>) (Supplier<?>) action);
+                return (CompletableFuture<ResponseEntity<ApiResponse<T>>>) (CompletableFuture<?>) created.result;
+            }
+
+            if (existing.fingerprint != fingerprint) {
+                conflicts.increment();
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                        .body(ApiResponse.error("Idempotency-Key was already used for a different request",
+                                HttpStatus.UNPROCESSABLE_ENTITY.value())));
+            }
+            (existing.result.isDone() ? hits : coalesced).increment();
+            return (CompletableFuture<ResponseEntity<ApiResponse<T>>>) (CompletableFuture<?>)
+                    existing.result.thenApply(IdempotencyService::replay);
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the request fields, used to detect a key reused for another request
+     */
+    public static long fingerprint(Object... parts) {
+        long hash = 0xcbf29ce484222325L;
+        for (Object part : parts) {
+            String value = String.valueOf(part);
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+            }
+            // Field separator, so ("ab", "c") and ("a", "bc") differ
+            hash = (hash ^ 0x1F) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Number of cached entries, including in-flight executions
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private void run(Entry entry, Supplier<? extends CompletableFuture<? extends ResponseEntity<?>>> action) {
+        CompletableFuture<? extends ResponseEntity<?>> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            discard(entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+        response.whenComplete((result, failure) -> {
+            if (failure != null) {
+                discard(entry);
+                entry.result.completeExceptionally(failure);
+                return;
+            }
+            if (result.getStatusCode().is5xxServerError()
+                    || result.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                discard(entry);
+            } else {
+                link(entry, System.nanoTime());
+            }
+            entry.result.complete(result);
+        });
+    }
+
+    /**
+     * Start a completed entry's TTL and append it, then drop expired entries from the
+     * old end and the oldest ones while over capacity
+     * Every listed entry is complete, so each step of the loop evicts one.
+     */
+    private void link(Entry entry, long now) {
+        orderLock.lock();
+        try {
+            entry.expiresAtNanos = now + TimeUnit.SECONDS.toNanos(ttlSeconds);
+            entry.expiring = true;
+            entry.older = newest;
+            if (newest != null) {
+                newest.newer = entry;
+            } else {
+                oldest = entry;
+            }
+            newest = entry;
+            entry.linked = true;
+            linked++;
+
+            while (oldest != null && (linked > maxEntries || oldest.isExpired(now))) {
+                Entry candidate = oldest;
+                unlink(candidate);
+                if (remove(candidate)) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            orderLock.unlock();
+        }
+    }
+
+    /**
+     * Drop an entry before its time, for a response that must not be replayed
+     */
+    private void discard(Entry entry) {
+        remove(entry);
+        orderLock.lock();
+        try {
+            unlink(entry);
+        } finally {
+            orderLock.unlock();
+        }
+    }
+
+    // Caller holds orderLock
+    private void unlink(Entry entry) {
+        if (!entry.linked) {
+            return;
+        }
+        if (entry.older != null) {
+            entry.older.newer = entry.newer;
+        } else {
+            oldest = entry.newer;
+        }
+        if (entry.newer != null) {
+            entry.newer.older = entry.older;
+        } else {
+            newest = entry.older;
+        }
+        entry.older = null;
+        entry.newer = null;
+        entry.linked = false;
+        linked--;
+    }
+
+    private boolean remove(Entry entry) {
+        if (entries.remove(entry.cacheKey, entry)) {
+            estimatedBytes.addAndGet(-entry.bytes);
+            return true;
+        }
+        return false;
+    }
+
+    private static ResponseEntity<?> replay(ResponseEntity<?> original) {
+        return ResponseEntity.status(original.getStatusCode())
+                .headers(original.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(original.getBody());
+    }
+
+    private static <R> R await(CompletableFuture<R> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Entry {
+        final String cacheKey;
+        final long fingerprint;
+        final int bytes;
+        final CompletableFuture<ResponseEntity<?>> result = new CompletableFuture<>();
+        // Set once the response completes; until then the entry never expires
+        volatile long expiresAtNanos;
+        volatile boolean expiring;
+        // Position in the completion order list, guarded by orderLock
+        Entry older;
+        Entry newer;
+        boolean linked;
+
+        Entry(String cacheKey, long fingerprint) {
+            this.cacheKey = cacheKey;
+            this.fingerprint = fingerprint;
+            this.bytes = ENTRY_OVERHEAD_BYTES + 2 * cacheKey.length();
+        }
+
+        boolean isExpired(long now) {
+            return expiring && now - expiresAtNanos > 0;
+        }
+    }
+}
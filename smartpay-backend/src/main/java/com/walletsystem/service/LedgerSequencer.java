@@ -0,0 +1,421 @@
+package com.walletsystem.service;
+
+import com.walletsystem.model.Transaction;
+import com.walletsystem.model.Wallet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * Single-writer ledger core used by WalletService in SHARDED mode
+ * User IDs are hashed to shards and each shard's wallets are only ever
+ * mutated by that shard's thread, fed through a bounded ring buffer.
+ * Every applied batch is journaled as one frame holding the wallet states and
+ * the transactions that produced them; if that write fails the batch's balances
+ * are restored and its publishers get the error.
+ * A cross-shard transfer is handed off rather than coordinated: the sender's shard
+ * debits and journals the transaction as PENDING, then posts the credit to the
+ * receiver's shard, which applies it and journals the transaction as COMPLETED.
+ * No shard ever waits for another; recovery settles transfers left PENDING.
+ */
+class LedgerSequencer {
+
+    private static final int OP_CREDIT = 0;
+    private static final int OP_TRANSFER = 1;
+
+    // Legs of a cross-shard transfer
+    private static final int DEBIT = 0;
+    private static final int CREDIT = 1;
+    private static final int REFUND = 2;
+
+    // Offered to a ring to wake its shard for a handoff; carries no work
+    private static final Command WAKE_UP = new Command(OP_CREDIT, null, null, 0, null, null);
+
+    private final Shard[] shards;
+    private final Function<String, Wallet> walletResolver;
+    private final FrameWriter frameWriter;
+    private final LongConsumer durability;
+    private final int maxBatch;
+    private volatile boolean running = true;
+
+    LedgerSequencer(int shardCount, int ringSize, int maxBatch, Function<String, Wallet> walletResolver,
+                    FrameWriter frameWriter, LongConsumer durability) {
+        this.walletResolver = walletResolver;
+        this.frameWriter = frameWriter;
+        this.durability = durability;
+        this.maxBatch = maxBatch;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, ringSize);
+            shards[i].start();
+        }
+    }
+
+    /**
+     * Credit a wallet on its owning shard, journaling the transaction with it
+     */
+    boolean credit(String userId, long amount, Transaction transaction) {
+        Command command = new Command(OP_CREDIT, userId, null, amount, transaction, null);
+        shardOf(userId).publish(command);
+        return await(command);
+    }
+
+    /**
+     * Transfer between two wallets, journaling the transaction with both balances
+     * Same-shard transfers are applied by the owning shard in one frame. A cross-shard
+     * transfer returns once the receiver's shard has journaled the credit; if the credit
+     * cannot be applied the sender's shard refunds the debit and the caller gets the error.
+     */
+    boolean transfer(String senderId, String receiverId, long amount, Transaction transaction) {
+        Shard senderShard = shardOf(senderId);
+        Shard receiverShard = shardOf(receiverId);
+        Command command = new Command(OP_TRANSFER, senderId, receiverId, amount, transaction,
+                senderShard == receiverShard ? null : receiverShard);
+        senderShard.publish(command);
+        return await(command);
+    }
+
+    void shutdown() {
+        running = false;
+        for (Shard shard : shards) {
+            shard.interrupt();
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Shard shardOf(String userId) {
+        int h = userId.hashCode();
+        return shards[Math.floorMod(h ^ (h >>> 16), shards.length)];
+    }
+
+    /**
+     * Wait for the shard's verdict, then for the frame holding it to become durable
+     */
+    private boolean await(Command command) {
+        boolean applied;
+        try {
+            applied = command.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        if (applied) {
+            durability.accept(command.position);
+        }
+        return applied;
+    }
+
+    /**
+     * Writes one batch frame and returns its end position; must not wait for fsync
+     */
+    @FunctionalInterface
+    interface FrameWriter {
+        long write(Collection<Wallet> wallets, List<Transaction> transactions);
+    }
+
+    private static final class Command {
+        final int op;
+        final String userId;
+        final String counterpartyId;
+        final long amount;
+        final Transaction transaction;
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        // Cross-shard only: the receiver's shard, the leg in progress and why a credit is being refunded;
+        // handed between shards through their queues, which publish these writes
+        final Shard partner;
+        int leg = DEBIT;
+        RuntimeException failure;
+        boolean applied;
+        // End of the journal frame holding this command, set before result completes
+        long position;
+
+        Command(int op, String userId, String counterpartyId, long amount, Transaction transaction, Shard partner) {
+            this.op = op;
+            this.userId = userId;
+            this.counterpartyId = counterpartyId;
+            this.amount = amount;
+            this.transaction = transaction;
+            this.partner = partner;
+        }
+    }
+
+    /**
+     * One shard: a pre-allocated array ring buffer drained in batches by a single thread
+     */
+    private final class Shard extends Thread {
+        private final BlockingQueue<Command> ring;
+        // Legs of cross-shard transfers posted by other shards; unbounded, so posting never blocks
+        private final Queue<Command> handoffs = new ConcurrentLinkedQueue<>();
+        private volatile boolean closed;
+        // Commands applied since the last frame, the wallets they touched and their balances before
+        private final List<Command> pending = new ArrayList<>();
+        private final Set<Wallet> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Map<Wallet, Long> original = new IdentityHashMap<>();
+        private final List<Transaction> transactions = new ArrayList<>();
+
+        Shard(int index, int ringSize) {
+            super("ledger-shard-" + index);
+            this.ring = new ArrayBlockingQueue<>(ringSize);
+            setDaemon(true);
+        }
+
+        void publish(Command command) {
+            if (!running) {
+                throw new IllegalStateException("Ledger is shutting down");
+            }
+            try {
+                ring.put(command);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while publishing ledger command");
+            }
+            // Shutdown may have drained the ring just before the put; take the command back
+            if (!running && ring.remove(command)) {
+                throw new IllegalStateException("Ledger is shutting down");
+            }
+        }
+
+        /**
+         * Post the next leg of a cross-shard transfer from another shard
+         */
+        void handOff(Command command) {
+            handoffs.add(command);
+            // Wake the shard if it is idle; a full ring means it is busy and checks handoffs next
+            ring.offer(WAKE_UP);
+            // This shard has stopped; the debit is journaled as PENDING and recovery settles it
+            if (closed && handoffs.remove(command)) {
+                command.result.completeExceptionally(
+                        new IllegalStateException("Ledger stopped before the transfer settled; it completes on restart"));
+            }
+        }
+
+        @Override
+        public void run() {
+            List<Command> batch = new ArrayList<>(maxBatch);
+            while (running) {
+                Command handoff;
+                while (batch.size() < maxBatch && (handoff = handoffs.poll()) != null) {
+                    batch.add(handoff);
+                }
+                if (batch.isEmpty()) {
+                    try {
+                        Command first = ring.poll(100, TimeUnit.MILLISECONDS);
+                        if (first == null) {
+                            continue;
+                        }
+                        batch.add(first);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                }
+                ring.drainTo(batch, maxBatch - batch.size());
+
+                for (Command command : batch) {
+                    dispatch(command);
+                }
+                flush();
+                batch.clear();
+            }
+
+            // Settle the legs already handed over, since their debits are journaled
+            closed = true;
+            Command handoff;
+            while ((handoff = handoffs.poll()) != null) {
+                dispatch(handoff);
+            }
+            flush();
+
+            // Fail anything still queued so publishers are not left waiting
+            IllegalStateException shuttingDown = new IllegalStateException("Ledger is shutting down");
+            Command queued;
+            while ((queued = ring.poll()) != null) {
+                if (queued != WAKE_UP) {
+                    queued.result.completeExceptionally(shuttingDown);
+                }
+            }
+        }
+
+        private void dispatch(Command command) {
+            if (command == WAKE_UP) {
+                return;
+            }
+            if (command.partner == null) {
+                applyLocal(command);
+                return;
+            }
+            switch (command.leg) {
+                case DEBIT:
+                    debit(command);
+                    break;
+                case CREDIT:
+                    credit(command);
+                    break;
+                default:
+                    refund(command);
+                    break;
+            }
+        }
+
+        private void applyLocal(Command command) {
+            Wallet wallet = walletResolver.apply(command.userId);
+            Wallet receiver = command.op == OP_TRANSFER ? walletResolver.apply(command.counterpartyId) : null;
+            remember(wallet);
+            if (receiver != null) {
+                remember(receiver);
+            }
+            try {
+                command.applied = apply(command, wallet, receiver);
+            } catch (RuntimeException e) {
+                command.result.completeExceptionally(e);
+                return;
+            }
+            if (command.applied) {
+                touched.add(wallet);
+                if (receiver != null) {
+                    touched.add(receiver);
+                }
+                transactions.add(command.transaction);
+            }
+            pending.add(command);
+        }
+
+        /**
+         * Sender side of a cross-shard transfer: take the money out and journal it as in flight
+         */
+        private void debit(Command command) {
+            Wallet sender = walletResolver.apply(command.userId);
+            remember(sender);
+            command.applied = sender.withdraw(command.amount);
+            if (command.applied) {
+                touched.add(sender);
+                transactions.add(command.transaction.withStatus(Transaction.TransactionStatus.PENDING));
+            }
+            pending.add(command);
+        }
+
+        /**
+         * Receiver side of a cross-shard transfer: pay the money in and journal the transfer as completed
+         */
+        private void credit(Command command) {
+            Wallet receiver = walletResolver.apply(command.counterpartyId);
+            remember(receiver);
+            try {
+                receiver.addFunds(command.amount);
+            } catch (RuntimeException e) {
+                refundLater(command, e);
+                return;
+            }
+            touched.add(receiver);
+            transactions.add(command.transaction);
+            pending.add(command);
+        }
+
+        /**
+         * Back on the sender's shard after the credit failed: return the money and journal the transfer as failed
+         */
+        private void refund(Command command) {
+            Wallet sender = walletResolver.apply(command.userId);
+            remember(sender);
+            try {
+                sender.addFunds(command.amount);
+            } catch (RuntimeException e) {
+                command.result.completeExceptionally(e);
+                return;
+            }
+            touched.add(sender);
+            transactions.add(command.transaction.withStatus(Transaction.TransactionStatus.FAILED));
+            pending.add(command);
+        }
+
+        private void refundLater(Command command, RuntimeException cause) {
+            command.leg = REFUND;
+            command.failure = cause;
+            shardOf(command.userId).handOff(command);
+        }
+
+        private boolean apply(Command command, Wallet wallet, Wallet receiver) {
+            switch (command.op) {
+                case OP_CREDIT:
+                    if (!wallet.canDeposit(command.amount)) {
+                        return false;
+                    }
+                    wallet.addFunds(command.amount);
+                    return true;
+                case OP_TRANSFER:
+                    return wallet.transferTo(receiver, command.amount);
+                default:
+                    throw new IllegalArgumentException("Unknown ledger command: " + command.op);
+            }
+        }
+
+        private void remember(Wallet wallet) {
+            original.putIfAbsent(wallet, wallet.getBalance());
+        }
+
+        /**
+         * Journal the pending commands as one frame, then release their publishers
+         * or pass cross-shard transfers on to their next leg
+         * If the write fails, every touched balance goes back to its value before the frame
+         */
+        private void flush() {
+            if (pending.isEmpty()) {
+                original.clear();
+                return;
+            }
+            RuntimeException failure = null;
+            long position = 0;
+            if (!touched.isEmpty()) {
+                try {
+                    position = frameWriter.write(touched, transactions);
+                } catch (RuntimeException e) {
+                    failure = e;
+                    original.forEach(Wallet::setBalance);
+                }
+            }
+            for (Command command : pending) {
+                if (failure != null) {
+                    if (command.partner != null && command.leg == CREDIT) {
+                        refundLater(command, failure);
+                    } else {
+                        command.result.completeExceptionally(failure);
+                    }
+                } else if (command.partner != null && command.leg == DEBIT && command.applied) {
+                    command.leg = CREDIT;
+                    command.partner.handOff(command);
+                } else if (command.partner != null && command.leg == REFUND) {
+                    command.result.completeExceptionally(command.failure);
+                } else {
+                    command.position = position;
+                    command.result.complete(command.applied);
+                }
+            }
+            pending.clear();
+            touched.clear();
+            original.clear();
+            transactions.clear();
+        }
+    }
+}
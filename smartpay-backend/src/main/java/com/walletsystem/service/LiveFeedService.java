@@ -0,0 +1,304 @@
+package com.walletsystem.service;
+
+import com.walletsystem.model.Account;
+import com.walletsystem.model.Transaction;
+import com.walletsystem.model.Wallet;
+import com.walletsystem.model.dto.BalanceUpdate;
+import com.walletsystem.utils.EpochMicros;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live Feed Service pushing a user's new transactions and balance changes over SSE
+ * Publishing never touches a socket: an event is appended to each of the user's
+ * subscriber ring buffers and the subscriber is handed to a small dispatcher pool,
+ * which drains it as its only writer. A subscriber that falls a full buffer behind
+ * loses its backlog and receives one "resync" event telling it to refetch instead.
+ * Idle subscribers hold no thread; the servlet container keeps their connections.
+ * Demonstrates encapsulation and business logic
+ */
+@Service
+public class LiveFeedService {
+
+    public static final String TRANSACTION_EVENT = "transaction";
+    public static final String BALANCE_EVENT = "balance";
+    public static final String RESYNC_EVENT = "resync";
+
+    @Value("${wallet.feed.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${wallet.feed.max-subscribers:100000}")
+    private int maxSubscribers;
+
+    @Value("${wallet.feed.heartbeat-seconds:20}")
+    private long heartbeatSeconds;
+
+    @Value("${wallet.feed.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    @Value("${wallet.feed.dispatch-threads:0}")
+    private int dispatchThreads;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private ThreadPoolExecutor dispatcher;
+    private ScheduledExecutorService heartbeat;
+
+    private Counter published;
+    private Counter resyncs;
+
+    @PostConstruct
+    public void start() {
+        int threads = dispatchThreads > 0 ? dispatchThreads : Math.max(2, Runtime.getRuntime().availableProcessors());
+        AtomicInteger threadIds = new AtomicInteger();
+        // Each subscriber is queued at most once at a time, so the queue is bounded by the subscriber count
+        dispatcher = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread thread = new Thread(r, "feed-dispatch-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "feed-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleAtFixedRate(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+
+        published = Counter.builder("wallet.feed.events")
+                .description("Events queued to live feed subscribers")
+                .register(meterRegistry);
+        resyncs = Counter.builder("wallet.feed.resyncs")
+                .description("Subscribers that fell a full buffer behind and were told to resync")
+                .register(meterRegistry);
+        Gauge.builder("wallet.feed.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open live feed connections")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeat.shutdownNow();
+        subscribers.values().forEach(list -> list.forEach(subscriber -> subscriber.emitter.complete()));
+        dispatcher.shutdown();
+    }
+
+    /**
+     * Open a feed of the user's transactions and balance changes
+     * Throws when the subscriber limit is reached
+     */
+    public SseEmitter subscribe(String userId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new RuntimeException("Too many live feed subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes));
+        Subscriber subscriber = new Subscriber(userId, emitter, bufferSize);
+        // Added inside compute so a concurrent remove cannot drop the list this subscriber joins
+        subscribers.compute(userId, (k, list) -> {
+            List<Subscriber> joined = list == null ? new CopyOnWriteArrayList<>() : list;
+            joined.add(subscriber);
+            return joined;
+        });
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        return emitter;
+    }
+
+    /**
+     * Push a committed transaction to its sender's and receiver's subscribers
+     */
+    public void publishTransaction(Transaction transaction) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        FeedEvent event = new FeedEvent(TRANSACTION_EVENT, transaction);
+        publish(transaction.getSenderId(), event);
+        if (transaction.getReceiverId() != null && !transaction.getReceiverId().equals(transaction.getSenderId())) {
+            publish(transaction.getReceiverId(), event);
+        }
+    }
+
+    /**
+     * Push a wallet's balance after a committed change to its owner's subscribers
+     */
+    public void publishBalance(Wallet wallet) {
+        if (subscribers.isEmpty() || !subscribers.containsKey(wallet.getUserId())) {
+            return;
+        }
+        Account.BalanceState state = wallet.readState();
+        publish(wallet.getUserId(), new FeedEvent(BALANCE_EVENT, new BalanceUpdate(wallet.getUserId(),
+                wallet.getAccountId(), state.balance(), state.version(), wallet.getCurrency(),
+                EpochMicros.toDateTime(state.updatedAtMicros()))));
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void publish(String userId, FeedEvent event) {
+        List<Subscriber> list = userId == null ? null : subscribers.get(userId);
+        if (list == null) {
+            return;
+        }
+        for (Subscriber subscriber : list) {
+            subscriber.offer(event);
+            published.increment();
+        }
+    }
+
+    private void heartbeat() {
+        subscribers.values().forEach(list -> list.forEach(Subscriber::heartbeat));
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        subscribers.computeIfPresent(subscriber.userId, (userId, list) -> {
+            list.remove(subscriber);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private record FeedEvent(String name, Object data) {
+    }
+
+    /**
+     * One open connection: a bounded ring of pending events drained by one dispatcher thread at a time
+     */
+    private final class Subscriber implements Runnable {
+        final String userId;
+        final SseEmitter emitter;
+        final FeedEvent[] ring;
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        int head;
+        int size;
+        boolean resync;
+        boolean heartbeatDue;
+        long nextEventId;
+
+        Subscriber(String userId, SseEmitter emitter, int capacity) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.ring = new FeedEvent[capacity];
+        }
+
+        void offer(FeedEvent event) {
+            synchronized (this) {
+                if (size == ring.length) {
+                    // Too far behind: drop the backlog and have the client refetch
+                    Arrays.fill(ring, null);
+                    head = 0;
+                    size = 0;
+                    if (!resync) {
+                        resync = true;
+                        resyncs.increment();
+                    }
+                    return;
+                }
+                ring[(head + size) % ring.length] = event;
+                size++;
+            }
+            schedule();
+        }
+
+        void heartbeat() {
+            synchronized (this) {
+                heartbeatDue = true;
+            }
+            schedule();
+        }
+
+        void schedule() {
+            if (!closed.get() && scheduled.compareAndSet(false, true)) {
+                dispatcher.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                drain();
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the emitter already completed
+                remove(this);
+                try {
+                    emitter.completeWithError(e);
+                } catch (RuntimeException ignored) {
+                    // Already completed
+                }
+            } finally {
+                scheduled.set(false);
+                if (hasPending()) {
+                    schedule();
+                }
+            }
+        }
+
+        private void drain() throws IOException {
+            while (!closed.get()) {
+                FeedEvent event = null;
+                boolean sendResync;
+                boolean sendHeartbeat;
+                synchronized (this) {
+                    sendResync = resync;
+                    resync = false;
+                    if (!sendResync && size > 0) {
+                        event = ring[head];
+                        ring[head] = null;
+                        head = (head + 1) % ring.length;
+                        size--;
+                    }
+                    sendHeartbeat = heartbeatDue && event == null && !sendResync;
+                    heartbeatDue = false;
+                }
+                if (sendResync) {
+                    emitter.send(SseEmitter.event().id(Long.toString(nextEventId++)).name(RESYNC_EVENT)
+                            .data(Map.of("reason", "Subscriber fell behind; refetch balance and history"),
+                                    MediaType.APPLICATION_JSON));
+                } else if (event != null) {
+                    emitter.send(SseEmitter.event().id(Long.toString(nextEventId++)).name(event.name())
+                            .data(event.data(), MediaType.APPLICATION_JSON));
+                } else {
+                    if (sendHeartbeat) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                    return;
+                }
+            }
+        }
+
+        private synchronized boolean hasPending() {
+            return !closed.get() && (size > 0 || resync || heartbeatDue);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.walletsystem.service;
+
+import com.walletsystem.model.Transaction;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Transaction store keeping records as fixed-width rows outside the heap
+ * (see TransactionRows) and materializing Transaction objects only when a caller reads one
+ * What stays on the heap is primitive: an open-addressing ID table of row numbers and
+ * chunked row-number orderings (store-wide, and per user for history), so heap size and
+ * GC work do not grow with per-transaction objects. Type and status queries walk the
+ * store-wide ordering and skip chunks by their type and status masks.
+ * Writers are serialized; scans copy small batches of row numbers under the read lock
+ * and decode rows outside it. Lookups by ID take no lock.
+ */
+final class OffHeapTransactionStore implements TransactionStore {
+
+    private static final int SCAN_BATCH = 256;
+    private static final int SCAN_BUDGET = 65_536;
+
+    private final TransactionRows rows;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // ID table: row + 1 per slot, 0 for empty; replaced wholesale when it grows
+    private volatile int[] slots = new int[1 << 12];
+
+    private final TransactionRowIndex timeIndex = new TransactionRowIndex();
+    // Per-user orderings, by user dictionary code
+    private TransactionRowIndex[] userIndexes = new TransactionRowIndex[1024];
+
+    // Published after every write; a reader that sees a count also sees the rows behind it
+    private volatile int rowCount;
+    private volatile int size;
+
+    OffHeapTransactionStore(Path directory) {
+        this.rows = new TransactionRows(directory);
+    }
+
+    @Override
+    public Transaction put(Transaction transaction) {
+        String transactionId = Objects.requireNonNull(transaction.getTransactionId(), "Transaction ID is required");
+        long numericId = TransactionRows.numericId(transactionId);
+        lock.writeLock().lock();
+        try {
+            int[] table = slots;
+            int slot = slotOf(table, transactionId, numericId);
+            Transaction previous = null;
+            if (table[slot] != 0) {
+                int replaced = table[slot] - 1;
+                previous = rows.materialize(replaced);
+                unindex(replaced);
+                rows.kill(replaced);
+            }
+
+            int row = rows.append(transaction);
+            index(row);
+            table[slot] = row + 1;
+            int live = previous == null ? size + 1 : size;
+            if ((long) live * 4 > (long) table.length * 3) {
+                grow();
+            }
+            size = live;
+            rowCount = row + 1;
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(int row) {
+        int mask = TransactionRowIndex.mask(rows.type(row), rows.status(row));
+        timeIndex.insert(rows, row, mask);
+        int sender = rows.sender(row);
+        int receiver = rows.receiver(row);
+        if (sender >= 0) {
+            userIndex(sender).insert(rows, row, mask);
+        }
+        if (receiver >= 0 && receiver != sender) {
+            userIndex(receiver).insert(rows, row, mask);
+        }
+    }
+
+    private void unindex(int row) {
+        timeIndex.remove(rows, row);
+        int sender = rows.sender(row);
+        int receiver = rows.receiver(row);
+        if (sender >= 0) {
+            userIndex(sender).remove(rows, row);
+        }
+        if (receiver >= 0 && receiver != sender) {
+            userIndex(receiver).remove(rows, row);
+        }
+    }
+
+    private TransactionRowIndex userIndex(int code) {
+        if (code >= userIndexes.length) {
+            userIndexes = Arrays.copyOf(userIndexes, Math.max(userIndexes.length * 2, code + 1));
+        }
+        TransactionRowIndex index = userIndexes[code];
+        if (index == null) {
+            index = new TransactionRowIndex();
+            userIndexes[code] = index;
+        }
+        return index;
+    }
+
+    @Override
+    public Transaction get(String transactionId) {
+        int row = find(transactionId);
+        return row < 0 ? null : rows.materialize(row);
+    }
+
+    @Override
+    public boolean contains(String transactionId) {
+        return find(transactionId) >= 0;
+    }
+
+    private int find(String transactionId) {
+        if (transactionId == null || rowCount == 0) {
+            return -1;
+        }
+        long numericId = TransactionRows.numericId(transactionId);
+        int[] table = slots;
+        int entry = table[slotOf(table, transactionId, numericId)];
+        return entry - 1;
+    }
+
+    /**
+     * Slot holding the ID, or the empty slot where it would go (linear probing)
+     */
+    private int slotOf(int[] table, String transactionId, long numericId) {
+        int mask = table.length - 1;
+        int slot = hash(transactionId, numericId, table.length);
+        while (true) {
+            int entry = table[slot];
+            if (entry == 0 || rows.hasId(entry - 1, transactionId, numericId)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static int hash(String transactionId, long numericId, int capacity) {
+        long key = numericId >= 0 ? numericId : transactionId.hashCode();
+        // Fibonacci hashing: the top bits of the product are well mixed
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(capacity)));
+    }
+
+    private void grow() {
+        int[] old = slots;
+        int[] table = new int[old.length * 2];
+        int mask = table.length - 1;
+        for (int entry : old) {
+            if (entry == 0) {
+                continue;
+            }
+            int row = entry - 1;
+            long numericId = rows.numericId(row);
+            int slot = hash(numericId >= 0 ? null : rows.transactionId(row), numericId, table.length);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = entry;
+        }
+        slots = table;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Stream<Transaction> stream() {
+        return IntStream.range(0, rowCount)
+                .filter(row -> !rows.isDead(row))
+                .mapToObj(rows::materialize);
+    }
+
+    @Override
+    public int userCount(String userId) {
+        int code = rows.findUser(userId);
+        if (code < 0) {
+            return 0;
+        }
+        lock.readLock().lock();
+        try {
+            TransactionRowIndex index = code < userIndexes.length ? userIndexes[code] : null;
+            return index == null ? 0 : index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Stream<Transaction> scan(String userId, Transaction.TransactionType type,
+                                    Transaction.TransactionStatus status, TransactionTimeIndex.Key after,
+                                    long fromMicros, long toMicros) {
+        int code = -1;
+        if (userId != null) {
+            code = rows.findUser(userId);
+            if (code < 0) {
+                return Stream.empty();
+            }
+        }
+        Scan scan = new Scan(code, type, status, after, fromMicros, toMicros);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(scan,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Off-heap bytes reserved for rows and strings
+     */
+    long allocatedBytes() {
+        return rows.allocatedBytes();
+    }
+
+    @Override
+    public void close() {
+        rows.close();
+    }
+
+    /**
+     * Newest-first iterator over one ordering, refilled a batch at a time
+     */
+    private final class Scan implements Iterator<Transaction> {
+        private final int userCode;
+        private final long fromMicros;
+        private final int requiredMask;
+        private final IntPredicate filter;
+        private final TransactionRowIndex.Batch batch = new TransactionRowIndex.Batch(SCAN_BATCH);
+        private IntPredicate below;
+        private int position;
+
+        Scan(int userCode, Transaction.TransactionType type, Transaction.TransactionStatus status,
+             TransactionTimeIndex.Key after, long fromMicros, long toMicros) {
+            this.userCode = userCode;
+            this.fromMicros = fromMicros;
+            int typeOrdinal = type == null ? -1 : type.ordinal();
+            int statusOrdinal = status == null ? -1 : status.ordinal();
+            this.requiredMask = TransactionRowIndex.mask(typeOrdinal, statusOrdinal);
+            this.filter = requiredMask == 0 ? null : row ->
+                    (typeOrdinal < 0 || rows.type(row) == typeOrdinal)
+                            && (statusOrdinal < 0 || rows.status(row) == statusOrdinal);
+
+            // Start below both the cursor and the end of the range
+            IntPredicate inRange = row -> rows.micros(row) <= toMicros;
+            if (after == null) {
+                below = inRange;
+            } else {
+                long afterId = TransactionRows.numericId(after.transactionId);
+                below = inRange.and(row -> rows.compare(row, after.micros, after.transactionId, afterId) < 0);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (position == batch.count) {
+                if (batch.done) {
+                    return false;
+                }
+                refill();
+            }
+            return true;
+        }
+
+        @Override
+        public Transaction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return rows.materialize(batch.rows[position++]);
+        }
+
+        private void refill() {
+            lock.readLock().lock();
+            try {
+                TransactionRowIndex index = timeIndex;
+                if (userCode >= 0) {
+                    index = userCode < userIndexes.length ? userIndexes[userCode] : null;
+                }
+                if (index == null) {
+                    batch.count = 0;
+                    batch.done = true;
+                } else {
+                    index.scan(rows, below, fromMicros, requiredMask, filter, SCAN_BUDGET, batch);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            position = 0;
+            if (batch.last >= 0) {
+                int last = batch.last;
+                below = row -> rows.compare(row, last) < 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.walletsystem.service;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ring of fixed-width time buckets, each holding a set of striped counters
+ * A writer finds the bucket for the current time and adds to its LongAdders, so
+ * concurrent writers on different cores never contend on one cache line. A slot whose
+ * bucket belongs to an earlier lap of the ring is replaced by a fresh bucket with a
+ * single CAS; old buckets are never reset in place, so no write is lost to a reset.
+ */
+final class RollingCounters {
+
+    private final long bucketMillis;
+    private final int series;
+    private final AtomicReferenceArray<Bucket> ring;
+
+    RollingCounters(int slots, long bucketMillis, int series) {
+        this.bucketMillis = bucketMillis;
+        this.series = series;
+        this.ring = new AtomicReferenceArray<>(slots);
+    }
+
+    /**
+     * Bucket covering the given time, claiming its slot if it still holds an older bucket
+     */
+    Bucket bucket(long nowMillis) {
+        long index = nowMillis / bucketMillis;
+        int slot = (int) Math.floorMod(index, (long) ring.length());
+        Bucket bucket = ring.get(slot);
+        while (bucket == null || bucket.index < index) {
+            Bucket fresh = new Bucket(index, series);
+            if (ring.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+            bucket = ring.get(slot);
+        }
+        // A clock step backwards lands in the newer bucket rather than losing the write
+        return bucket;
+    }
+
+    /**
+     * Per-series sums over the buckets in [fromIndex, toIndex)
+     */
+    long[] sum(long fromIndex, long toIndex) {
+        long[] totals = new long[series];
+        for (int slot = 0; slot < ring.length(); slot++) {
+            Bucket bucket = ring.get(slot);
+            if (bucket != null && bucket.index >= fromIndex && bucket.index < toIndex) {
+                for (int s = 0; s < series; s++) {
+                    totals[s] += bucket.counters[s].sum();
+                }
+            }
+        }
+        return totals;
+    }
+
+    long indexOf(long millis) {
+        return millis / bucketMillis;
+    }
+
+    long bucketMillis() {
+        return bucketMillis;
+    }
+
+    static final class Bucket {
+        final long index;
+        final LongAdder[] counters;
+
+        Bucket(long index, int series) {
+            this.index = index;
+            this.counters = new LongAdder[series];
+            for (int s = 0; s < series; s++) {
+                counters[s] = new LongAdder();
+            }
+        }
+
+        void add(int series, long delta) {
+            counters[series].add(delta);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.walletsystem.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meter definitions shared by the service-layer instrumentation
+ * Timers publish a percentile histogram bounded to 1 µs..10 s, so each one is a fixed
+ * set of buckets and recording a call is a handful of atomic adds with no allocation.
+ */
+final class ServiceMetrics {
+
+    private ServiceMetrics() {
+    }
+
+    /**
+     * Latency timer for one service method, exported as wallet_service_seconds{service,method}
+     */
+    static Timer timer(MeterRegistry registry, String service, String method) {
+        return histogramTimer("wallet.service", "Service method latency")
+                .tag("service", service)
+                .tag("method", method)
+                .register(registry);
+    }
+
+    static Timer.Builder histogramTimer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1_000))
+                .maximumExpectedValue(Duration.ofSeconds(10));
+    }
+
+    /**
+     * Counter for one business outcome of an operation, e.g. wallet.transfers{outcome=insufficient_funds}
+     */
+    static Counter outcome(MeterRegistry registry, String name, String description, String outcome) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    static void record(Timer timer, long startNanos) {
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
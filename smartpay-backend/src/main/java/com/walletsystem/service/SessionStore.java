@@ -0,0 +1,261 @@
+package com.walletsystem.service;
+
+import com.walletsystem.utils.IdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded session store with sliding expiry
+ * Expiry is driven by a hashed timing wheel: each session sits in the slot of its
+ * deadline tick and a single ticker thread empties one slot per tick. A validation
+ * only moves the session's deadline forward; the wheel notices on its next pass over
+ * the session and reschedules it, so touching a session never takes a lock.
+ * The wheel always spans at least one TTL, so no session waits more than one round.
+ * At capacity, a new session evicts the one nearest to expiry, to within one tick.
+ */
+@Component
+public class SessionStore {
+
+    // Map node (32), session (32), token string (~96), user ID string (~56), wheel queue node (24)
+    private static final int ESTIMATED_BYTES_PER_SESSION = 240;
+
+    @Value("${wallet.session.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    @Value("${wallet.session.max-sessions:100000}")
+    private int maxSessions;
+
+    @Value("${wallet.session.wheel-slots:512}")
+    private int wheelSlots;
+
+    @Value("${wallet.session.tick-millis:1000}")
+    private long tickMillis;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger sessionCount = new AtomicInteger();
+    private AtomicReferenceArray<Queue<Session>> wheel;
+    private int wheelMask;
+    private volatile long currentTick;
+    private long ttlMillis;
+    private ScheduledExecutorService ticker;
+
+    private Counter created;
+    private Counter expired;
+    private Counter evicted;
+
+    @PostConstruct
+    public void start() {
+        ttlMillis = TimeUnit.MINUTES.toMillis(ttlMinutes);
+        // One round must cover the TTL plus a tick, so a slot only ever holds deadlines of its own round
+        long ttlTicks = (ttlMillis + tickMillis - 1) / tickMillis + 1;
+        int slots = Integer.highestOneBit((int) Math.max(2, Math.max(wheelSlots, ttlTicks) - 1)) << 1;
+        wheelMask = slots - 1;
+        wheel = new AtomicReferenceArray<>(slots);
+        for (int i = 0; i < slots; i++) {
+            wheel.set(i, new ConcurrentLinkedQueue<>());
+        }
+        currentTick = tickOf(System.currentTimeMillis());
+
+        created = Counter.builder("wallet.sessions.created")
+                .description("Sessions issued at registration or login")
+                .register(meterRegistry);
+        expired = Counter.builder("wallet.sessions.expired")
+                .description("Sessions removed after their idle TTL")
+                .register(meterRegistry);
+        evicted = Counter.builder("wallet.sessions.evicted")
+                .description("Sessions evicted early because the store was full")
+                .register(meterRegistry);
+        Gauge.builder("wallet.sessions.active", sessionCount, AtomicInteger::get)
+                .description("Sessions currently held")
+                .register(meterRegistry);
+        Gauge.builder("wallet.sessions.memory", this, SessionStore::estimatedBytes)
+                .description("Approximate memory held by sessions")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "session-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Issue a new session token for a user, evicting the session nearest to expiry when full
+     */
+    public String create(String userId) {
+        String token = IdGenerator.generateToken();
+        Session session = new Session(token, userId, System.currentTimeMillis() + ttlMillis);
+        sessions.put(token, session);
+        schedule(session);
+        created.increment();
+        if (sessionCount.incrementAndGet() > maxSessions) {
+            evictNearestExpiry();
+        }
+        return token;
+    }
+
+    /**
+     * User ID for a live token, or null; a hit slides the session's expiry forward
+     */
+    public String resolve(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        long expiresAt = session.expiresAt;
+        if (now >= expiresAt) {
+            if (remove(session)) {
+                expired.increment();
+            }
+            return null;
+        }
+        // Skip the write unless the deadline moves by at least a tick, to keep hot sessions cheap
+        long extended = now + ttlMillis;
+        if (extended - expiresAt >= tickMillis) {
+            session.expiresAt = extended;
+        }
+        return session.userId;
+    }
+
+    /**
+     * End a session immediately
+     */
+    public boolean invalidate(String token) {
+        Session session = token == null ? null : sessions.get(token);
+        return session != null && remove(session);
+    }
+
+    public int size() {
+        return sessionCount.get();
+    }
+
+    /**
+     * Approximate heap held by one session, for capacity planning
+     */
+    public int estimatedBytesPerSession() {
+        return ESTIMATED_BYTES_PER_SESSION;
+    }
+
+    private double estimatedBytes() {
+        return (double) sessionCount.get() * estimatedBytesPerSession();
+    }
+
+    /**
+     * Ticker thread: process every slot after the last processed tick up to now
+     */
+    private void advance() {
+        long now = System.currentTimeMillis();
+        long target = tickOf(now);
+        for (long tick = currentTick + 1; tick <= target; tick++) {
+            currentTick = tick;
+            Queue<Session> due = wheel.getAndSet((int) (tick & wheelMask), new ConcurrentLinkedQueue<>());
+            Session session;
+            while ((session = due.poll()) != null) {
+                if (session.removed) {
+                    continue;
+                }
+                if (session.expiresAt <= now) {
+                    if (remove(session)) {
+                        expired.increment();
+                    }
+                } else {
+                    // Extended since it was scheduled
+                    schedule(session);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the first session, in tick order from the current tick, whose deadline has
+     * reached its slot's tick
+     * A session found in an earlier slot than its deadline was extended since it was
+     * scheduled; it is moved to its own slot rather than evicted, and the scan goes on.
+     */
+    private void evictNearestExpiry() {
+        long start = currentTick;
+        for (int i = 0; i <= wheelMask; i++) {
+            long tick = start + i;
+            Iterator<Session> slot = wheel.get((int) (tick & wheelMask)).iterator();
+            while (slot.hasNext()) {
+                Session session = slot.next();
+                if (session.removed) {
+                    slot.remove();
+                } else if (tickOf(session.expiresAt) <= tick) {
+                    if (remove(session)) {
+                        slot.remove();
+                        evicted.increment();
+                        return;
+                    }
+                } else {
+                    slot.remove();
+                    schedule(session);
+                }
+            }
+        }
+    }
+
+    private void schedule(Session session) {
+        long tick = Math.max(tickOf(session.expiresAt), currentTick + 1);
+        wheel.get((int) (tick & wheelMask)).add(session);
+    }
+
+    private boolean remove(Session session) {
+        if (sessions.remove(session.token, session)) {
+            session.removed = true;
+            sessionCount.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private long tickOf(long millis) {
+        return millis / tickMillis;
+    }
+
+    private static final class Session {
+        final String token;
+        final String userId;
+        volatile long expiresAt;
+        volatile boolean removed;
+
+        Session(String token, String userId, long expiresAt) {
+            this.token = token;
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.walletsystem.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Issues and verifies self-contained HMAC-SHA256 signed tokens
+ * Any node holding the same wallet.auth.secret can validate a token without shared state.
+ * Token body: [version][expiry epoch seconds (8)][user ID length][user ID][MAC (16)],
+ * base64url encoded after "Bearer ". Validation decodes into a per-thread buffer and
+ * verifies with a per-thread Mac, so the only allocation is the returned user ID.
+ */
+@Component
+public class StatelessTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(StatelessTokenService.class);
+
+    private static final String PREFIX = "Bearer ";
+    private static final byte VERSION = 1;
+    private static final int HEADER_LENGTH = 1 + 8 + 1;
+    private static final int MAC_LENGTH = 16;
+    private static final int MAX_USER_ID_LENGTH = 255;
+    private static final int MAX_TOKEN_BYTES = HEADER_LENGTH + MAX_USER_ID_LENGTH + MAC_LENGTH;
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    @Value("${wallet.auth.secret:}")
+    private String secret;
+
+    @Value("${wallet.auth.token-ttl-minutes:60}")
+    private long ttlMinutes;
+
+    private SecretKeySpec key;
+    private ThreadLocal<Mac> macs;
+    private final ThreadLocal<byte[]> decodeBuffers = ThreadLocal.withInitial(() -> new byte[MAX_TOKEN_BYTES]);
+    private final ThreadLocal<byte[]> macBuffers = ThreadLocal.withInitial(() -> new byte[32]);
+
+    // Revoked token MACs until their token would have expired anyway
+    private final Map<Revoked, Long> revoked = new ConcurrentHashMap<>();
+    // The same revocations ordered by expiry, so purging touches only expired ones; guarded by itself
+    private final PriorityQueue<Expiry> expiries = new PriorityQueue<>(Comparator.comparingLong(Expiry::expiresAt));
+
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            log.warn("wallet.auth.secret is not set; stateless tokens will not survive a restart "
+                    + "or validate on other nodes");
+        } else {
+            keyBytes = Base64.getDecoder().decode(secret.trim());
+            if (keyBytes.length < 32) {
+                throw new IllegalStateException("wallet.auth.secret must be at least 32 bytes (base64)");
+            }
+        }
+        key = new SecretKeySpec(keyBytes, "HmacSHA256");
+        macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 unavailable", e);
+            }
+        });
+    }
+
+    /**
+     * Issue a token for the user, valid for wallet.auth.token-ttl-minutes
+     */
+    public String issue(String userId) {
+        byte[] id = userId.getBytes(StandardCharsets.UTF_8);
+        if (id.length > MAX_USER_ID_LENGTH) {
+            throw new IllegalArgumentException("User ID too long for a token");
+        }
+        long expiresAt = System.currentTimeMillis() / 1000 + ttlMinutes * 60;
+        byte[] body = new byte[HEADER_LENGTH + id.length + MAC_LENGTH];
+        body[0] = VERSION;
+        putLong(body, 1, expiresAt);
+        body[9] = (byte) id.length;
+        System.arraycopy(id, 0, body, HEADER_LENGTH, id.length);
+        byte[] mac = sign(body, HEADER_LENGTH + id.length);
+        System.arraycopy(mac, 0, body, HEADER_LENGTH + id.length, MAC_LENGTH);
+        return PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(body);
+    }
+
+    /**
+     * User ID of a valid, unexpired and unrevoked token, or null
+     */
+    public String verify(String token) {
+        byte[] body = decodeBuffers.get();
+        int length = decode(token, body);
+        if (length < HEADER_LENGTH + MAC_LENGTH || body[0] != VERSION) {
+            return null;
+        }
+        int idLength = body[9] & 0xFF;
+        int signedLength = HEADER_LENGTH + idLength;
+        if (length != signedLength + MAC_LENGTH) {
+            return null;
+        }
+        if (!macMatches(body, signedLength)) {
+            return null;
+        }
+        long expiresAt = getLong(body, 1);
+        if (System.currentTimeMillis() / 1000 >= expiresAt) {
+            return null;
+        }
+        if (!revoked.isEmpty() && revoked.containsKey(new Revoked(getLong(body, signedLength),
+                getLong(body, signedLength + 8)))) {
+            return null;
+        }
+        return new String(body, HEADER_LENGTH, idLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Revoke a valid token until it expires; returns false for invalid tokens
+     */
+    public boolean revoke(String token) {
+        if (verify(token) == null) {
+            return false;
+        }
+        byte[] body = decodeBuffers.get();
+        int signedLength = HEADER_LENGTH + (body[9] & 0xFF);
+        Revoked mac = new Revoked(getLong(body, signedLength), getLong(body, signedLength + 8));
+        long expiresAt = getLong(body, 1);
+        revoked.put(mac, expiresAt);
+        long now = System.currentTimeMillis() / 1000;
+        synchronized (expiries) {
+            expiries.add(new Expiry(expiresAt, mac));
+            // Entries for tokens past their expiry no longer matter
+            Expiry head;
+            while ((head = expiries.peek()) != null && head.expiresAt() <= now) {
+                expiries.poll();
+                revoked.remove(head.mac(), head.expiresAt());
+            }
+        }
+        return true;
+    }
+
+    public int revokedCount() {
+        return revoked.size();
+    }
+
+    private byte[] sign(byte[] body, int length) {
+        Mac mac = macs.get();
+        mac.update(body, 0, length);
+        byte[] out = macBuffers.get();
+        try {
+            mac.doFinal(out, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+        return out;
+    }
+
+    /**
+     * Constant-time comparison of the token's MAC with the expected one
+     */
+    private boolean macMatches(byte[] body, int signedLength) {
+        byte[] expected = sign(body, signedLength);
+        int diff = 0;
+        for (int i = 0; i < MAC_LENGTH; i++) {
+            diff |= expected[i] ^ body[signedLength + i];
+        }
+        return diff == 0;
+    }
+
+    /**
+     * Base64url-decode the token after its prefix into the buffer; returns the length or -1
+     */
+    private static int decode(String token, byte[] out) {
+        if (token == null || !token.startsWith(PREFIX)) {
+            return -1;
+        }
+        int start = PREFIX.length();
+        int chars = token.length() - start;
+        if (chars % 4 == 1 || (chars * 3) / 4 > out.length) {
+            return -1;
+        }
+        int length = 0;
+        int bits = 0;
+        int bitCount = 0;
+        for (int i = start; i < token.length(); i++) {
+            char c = token.charAt(i);
+            int value = c < DECODE.length ? DECODE[c] : -1;
+            if (value < 0) {
+                return -1;
+            }
+            bits = (bits << 6) | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                out[length++] = (byte) (bits >> bitCount);
+            }
+        }
+        return length;
+    }
+
+    private static void putLong(byte[] bytes, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long getLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private record Revoked(long macHigh, long macLow) {
+    }
+
+    private record Expiry(long expiresAt, Revoked mac) {
+    }
+}
@@ -0,0 +1,88 @@
+package com.walletsystem.service;
+
+import com.walletsystem.model.dto.SystemStats;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Stats Service keeping live system-wide throughput over rolling windows
+ * Every event is added to a per-second ring (5 minutes deep) and a per-minute ring
+ * (an hour deep). Windows cover completed buckets only, so a rate is never diluted
+ * by the second or minute still in progress. Recording is a few LongAdder adds.
+ * Demonstrates encapsulation and business logic
+ */
+@Service
+public class StatsService {
+
+    private static final int SERIES = Series.values().length;
+
+    private final RollingCounters perSecond = new RollingCounters(320, 1_000, SERIES);
+    private final RollingCounters perMinute = new RollingCounters(64, 60_000, SERIES);
+
+    /**
+     * A transaction was recorded
+     */
+    public void recordTransaction(long amount) {
+        long now = System.currentTimeMillis();
+        RollingCounters.Bucket second = perSecond.bucket(now);
+        RollingCounters.Bucket minute = perMinute.bucket(now);
+        second.add(Series.TRANSACTIONS.ordinal(), 1);
+        second.add(Series.VOLUME.ordinal(), amount);
+        minute.add(Series.TRANSACTIONS.ordinal(), 1);
+        minute.add(Series.VOLUME.ordinal(), amount);
+    }
+
+    public void recordDeposit() {
+        record(Series.DEPOSITS, 1);
+    }
+
+    public void recordTransfers(int count) {
+        record(Series.TRANSFERS, count);
+    }
+
+    public void recordFailures(int count) {
+        record(Series.FAILURES, count);
+    }
+
+    private void record(Series series, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        perSecond.bucket(now).add(series.ordinal(), delta);
+        perMinute.bucket(now).add(series.ordinal(), delta);
+    }
+
+    /**
+     * Throughput over the last minute, 5 minutes and hour
+     * Demonstrates encapsulation
+     */
+    public SystemStats getStats() {
+        long now = System.currentTimeMillis();
+        return new SystemStats(LocalDateTime.now(), List.of(
+                window("1m", perSecond, now, 60),
+                window("5m", perSecond, now, 300),
+                window("1h", perMinute, now, 60)));
+    }
+
+    /**
+     * Sum of the given number of completed buckets before the current one
+     */
+    private static SystemStats.Window window(String name, RollingCounters counters, long now, int buckets) {
+        long current = counters.indexOf(now);
+        long[] totals = counters.sum(current - buckets, current);
+        return new SystemStats.Window(name, buckets * counters.bucketMillis() / 1_000,
+                totals[Series.TRANSACTIONS.ordinal()],
+                totals[Series.VOLUME.ordinal()],
+                totals[Series.DEPOSITS.ordinal()],
+                totals[Series.TRANSFERS.ordinal()],
+                totals[Series.FAILURES.ordinal()]);
+    }
+
+    // Counted series, by ordinal
+    private enum Series {
+        TRANSACTIONS, VOLUME, DEPOSITS, TRANSFERS, FAILURES
+    }
+}
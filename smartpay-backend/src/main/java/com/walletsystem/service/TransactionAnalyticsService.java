@@ -0,0 +1,138 @@
+package com.walletsystem.service;
+
+import com.walletsystem.model.Transaction;
+import com.walletsystem.model.dto.TransactionAnalytics;
+import com.walletsystem.utils.EpochMicros;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Transaction Analytics Service answering aggregate queries over all transactions
+ * Every indexed transaction is mirrored into a columnar store (see TransactionColumns),
+ * so a count/volume breakdown by type, day or counterparty is one parallel scan over
+ * primitive arrays rather than a walk over Transaction objects.
+ * Demonstrates encapsulation and business logic
+ */
+@Service
+public class TransactionAnalyticsService {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${wallet.analytics.enabled:true}")
+    private boolean enabled;
+
+    private final TransactionColumns columns = new TransactionColumns();
+
+    private Timer aggregateTimer;
+
+    @PostConstruct
+    public void init() {
+        aggregateTimer = ServiceMetrics.timer(meterRegistry, "analytics", "aggregate");
+        Gauge.builder("wallet.analytics.rows", columns, TransactionColumns::rowCount)
+                .description("Rows in the columnar analytics mirror, retractions included")
+                .register(meterRegistry);
+        Gauge.builder("wallet.analytics.bytes", columns, TransactionColumns::allocatedBytes)
+                .description("Heap bytes reserved for analytics columns")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Mirror a newly indexed transaction
+     */
+    public void record(Transaction transaction) {
+        if (enabled) {
+            columns.append(transaction, 1);
+        }
+    }
+
+    /**
+     * Take back a transaction that was replaced under the same ID
+     */
+    public void retract(Transaction transaction) {
+        if (enabled) {
+            columns.append(transaction, -1);
+        }
+    }
+
+    /**
+     * Count and volume of transactions matching the optional filters, grouped by type,
+     * day (UTC) or counterparty
+     * Types come in declaration order and days oldest first, empty groups left out.
+     * Counterparties come by volume, largest first, cut to limit; the counterparty is the
+     * receiver, or with a userId filter the other party of each of that user's transactions.
+     * Demonstrates polymorphism and business logic
+     */
+    public TransactionAnalytics aggregate(TransactionAnalytics.GroupBy groupBy, LocalDateTime from, LocalDateTime to,
+                                          Transaction.TransactionType type, Transaction.TransactionStatus status,
+                                          String userId, Long minAmount, Long maxAmount, int limit) {
+        if (!enabled) {
+            throw new IllegalStateException("Transaction analytics is disabled");
+        }
+        long start = System.nanoTime();
+        try {
+            int user = -1;
+            if (userId != null) {
+                user = columns.findUser(userId);
+                // A user with no transactions matches nothing
+                user = user < 0 ? -2 : user;
+            }
+            TransactionColumns.Result result = columns.aggregate(groupBy,
+                    from == null ? Long.MIN_VALUE : EpochMicros.of(from),
+                    to == null ? Long.MAX_VALUE : EpochMicros.of(to),
+                    type == null ? -1 : type.ordinal(),
+                    status == null ? -1 : status.ordinal(),
+                    user,
+                    minAmount == null ? Long.MIN_VALUE : minAmount,
+                    maxAmount == null ? Long.MAX_VALUE : maxAmount);
+
+            List<TransactionAnalytics.Group> groups = new ArrayList<>();
+            for (int key = 0; key < result.keys(); key++) {
+                if (result.count(key) == 0) {
+                    continue;
+                }
+                groups.add(new TransactionAnalytics.Group(keyName(groupBy, key, result),
+                        result.count(key), result.volume(key)));
+            }
+            if (groupBy == TransactionAnalytics.GroupBy.COUNTERPARTY) {
+                groups.sort(Comparator.comparingLong(TransactionAnalytics.Group::getVolume).reversed()
+                        .thenComparing(TransactionAnalytics.Group::getKey));
+                if (groups.size() > limit) {
+                    groups = new ArrayList<>(groups.subList(0, limit));
+                }
+            }
+
+            return new TransactionAnalytics(groupBy, result.count, result.volume, groups,
+                    result.scannedRows, result.skippedChunks, (System.nanoTime() - start) / 1_000);
+        } finally {
+            ServiceMetrics.record(aggregateTimer, start);
+        }
+    }
+
+    private String keyName(TransactionAnalytics.GroupBy groupBy, int key, TransactionColumns.Result result) {
+        switch (groupBy) {
+            case TYPE:
+                return Transaction.TransactionType.values()[key].name();
+            case DAY:
+                return LocalDate.ofEpochDay(result.firstDay + key).toString();
+            default:
+                return columns.userName(key);
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package com.walletsystem.service;
+
+import com.walletsystem.model.Transaction;
+import com.walletsystem.model.dto.TransactionAnalytics.GroupBy;
+import com.walletsystem.utils.EpochMicros;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Append-only columnar mirror of the transaction store, for aggregate queries
+ * Each field lives in its own primitive array, in chunks of CHUNK rows, so an aggregate
+ * reads only the columns it needs with no per-row objects: one branch-free pass selects
+ * a chunk's matching rows, then a loop specialised to the grouping sums them. Every chunk
+ * keeps min/max zone maps on timestamp and amount; a range query skips chunks entirely
+ * outside it and drops the per-row range checks for chunks entirely inside it.
+ * A transaction replaced under the same ID is not updated in place: a retraction row
+ * (weight -1) is appended for the old version, so counts and volumes stay net.
+ * Appends are serialized; queries are lock-free and read the rows published when they
+ * start, scanning chunks in parallel.
+ */
+final class TransactionColumns {
+
+    static final int CHUNK = 1 << 16;
+    static final long MICROS_PER_DAY = 86_400_000_000L;
+    // Longest DAY grouping answered in one query (about a century)
+    static final int MAX_DAYS = 36_600;
+
+    private static final int TYPES = Transaction.TransactionType.values().length;
+
+    private final UserDictionary users = new UserDictionary();
+    private volatile Chunk[] chunks = new Chunk[16];
+    // Rows below this are fully written, zone maps included
+    private volatile long rowCount;
+
+    /**
+     * Append one row for a transaction (weight 1) or for the retraction of one (weight -1)
+     * Transactions without a timestamp are not mirrored, as they cannot be placed in time.
+     */
+    synchronized void append(Transaction transaction, int weight) {
+        long micros = EpochMicros.of(transaction.getTimestamp());
+        if (micros == EpochMicros.NONE) {
+            return;
+        }
+        long row = rowCount;
+        int index = (int) (row / CHUNK);
+        Chunk[] current = chunks;
+        if (index == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        Chunk chunk = current[index];
+        if (chunk == null) {
+            chunk = new Chunk();
+            current[index] = chunk;
+            chunks = current;
+        }
+        int slot = (int) (row % CHUNK);
+        long amount = transaction.getAmount();
+        chunk.micros[slot] = micros;
+        chunk.amounts[slot] = amount;
+        chunk.senders[slot] = users.code(transaction.getSenderId());
+        chunk.receivers[slot] = users.code(transaction.getReceiverId());
+        chunk.types[slot] = (byte) (transaction.getType() == null ? -1 : transaction.getType().ordinal());
+        chunk.statuses[slot] = (byte) (transaction.getStatus() == null ? -1 : transaction.getStatus().ordinal());
+        chunk.weights[slot] = (byte) weight;
+        chunk.minMicros = Math.min(chunk.minMicros, micros);
+        chunk.maxMicros = Math.max(chunk.maxMicros, micros);
+        chunk.minAmount = Math.min(chunk.minAmount, amount);
+        chunk.maxAmount = Math.max(chunk.maxAmount, amount);
+        rowCount = row + 1;
+    }
+
+    long rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * On-heap bytes reserved by the column chunks
+     */
+    long allocatedBytes() {
+        int count = (int) ((rowCount + CHUNK - 1) / CHUNK);
+        return (long) count * CHUNK * Chunk.ROW_BYTES;
+    }
+
+    String userName(int code) {
+        return users.name(code);
+    }
+
+    int findUser(String userId) {
+        return users.find(userId);
+    }
+
+    /**
+     * Aggregate the rows published so far
+     * type, status and user are codes (-1 for any); user = -2 matches nothing. Time and
+     * amount bounds are inclusive. Workers take interleaved chunks, so a time range that
+     * covers only recent chunks is still spread over all of them.
+     */
+    Result aggregate(GroupBy groupBy, long fromMicros, long toMicros, int type, int status, int user,
+                     long minAmount, long maxAmount) {
+        long published = rowCount;
+        Chunk[] current = chunks;
+        // Read after rowCount, so every user code in the published rows is below it
+        int userCount = users.size();
+        int chunkCount = (int) ((published + CHUNK - 1) / CHUNK);
+
+        Query query = new Query(groupBy, fromMicros, toMicros, type, status, user, minAmount, maxAmount);
+        boolean[] skip = new boolean[chunkCount];
+        long firstMicros = Long.MAX_VALUE;
+        long lastMicros = Long.MIN_VALUE;
+        for (int c = 0; c < chunkCount; c++) {
+            Chunk chunk = current[c];
+            skip[c] = user == -2 || !query.overlaps(chunk);
+            if (!skip[c]) {
+                firstMicros = Math.min(firstMicros, Math.max(chunk.minMicros, fromMicros));
+                lastMicros = Math.max(lastMicros, Math.min(chunk.maxMicros, toMicros));
+            }
+        }
+
+        int keys;
+        switch (groupBy) {
+            case TYPE:
+                keys = TYPES;
+                break;
+            case DAY:
+                if (firstMicros > lastMicros) {
+                    keys = 0;
+                    break;
+                }
+                query.firstDay = Math.floorDiv(firstMicros, MICROS_PER_DAY);
+                long days = Math.floorDiv(lastMicros, MICROS_PER_DAY) - query.firstDay + 1;
+                if (days > MAX_DAYS) {
+                    throw new IllegalArgumentException("Day grouping spans " + days
+                            + " days; narrow it with from/to to at most " + MAX_DAYS);
+                }
+                keys = (int) days;
+                break;
+            default:
+                keys = userCount;
+        }
+
+        int workers = Math.max(1, Math.min(chunkCount, Runtime.getRuntime().availableProcessors()));
+        Result[] partials = new Result[workers];
+        IntStream.range(0, workers).parallel().forEach(worker -> {
+            Result partial = new Result(keys);
+            for (int c = worker; c < chunkCount; c += workers) {
+                if (skip[c]) {
+                    partial.skippedChunks++;
+                    continue;
+                }
+                int rows = (int) Math.min(CHUNK, published - (long) c * CHUNK);
+                query.scan(current[c], rows, partial);
+                partial.scannedRows += rows;
+            }
+            partials[worker] = partial;
+        });
+
+        Result result = partials[0];
+        for (int w = 1; w < workers; w++) {
+            result.merge(partials[w]);
+        }
+        result.firstDay = query.firstDay;
+        return result;
+    }
+
+    /**
+     * Filters and group key of one aggregate query
+     */
+    private static final class Query {
+        final GroupBy groupBy;
+        final long fromMicros;
+        final long toMicros;
+        final int type;
+        final int status;
+        final int user;
+        final long minAmount;
+        final long maxAmount;
+        long firstDay;
+
+        Query(GroupBy groupBy, long fromMicros, long toMicros, int type, int status, int user,
+              long minAmount, long maxAmount) {
+            this.groupBy = groupBy;
+            this.fromMicros = fromMicros;
+            this.toMicros = toMicros;
+            this.type = type;
+            this.status = status;
+            this.user = user;
+            this.minAmount = minAmount;
+            this.maxAmount = maxAmount;
+        }
+
+        boolean overlaps(Chunk chunk) {
+            return chunk.maxMicros >= fromMicros && chunk.minMicros <= toMicros
+                    && chunk.maxAmount >= minAmount && chunk.minAmount <= maxAmount;
+        }
+
+        boolean contains(Chunk chunk) {
+            return chunk.minMicros >= fromMicros && chunk.maxMicros <= toMicros
+                    && chunk.minAmount >= minAmount && chunk.maxAmount <= maxAmount;
+        }
+
+        void scan(Chunk chunk, int rows, Result into) {
+            int selected = select(chunk, rows, into.selection);
+            switch (groupBy) {
+                case TYPE:
+                    sumByType(chunk, into.selection, selected, into);
+                    break;
+                case DAY:
+                    sumByDay(chunk, into.selection, selected, into);
+                    break;
+                default:
+                    sumByCounterparty(chunk, into.selection, selected, into);
+            }
+        }
+
+        /**
+         * Write the matching row numbers to selection and return how many there are
+         * Each filter in use narrows the selection in its own pass over one column, so
+         * unused filters cost nothing, and passes keep rows without branching, so a filter
+         * that keeps half the rows costs no mispredictions. Inside the zone maps the range
+         * pass is skipped.
+         */
+        private int select(Chunk chunk, int rows, int[] selection) {
+            int selected = 0;
+            if (contains(chunk)) {
+                for (int i = 0; i < rows; i++) {
+                    selection[i] = i;
+                }
+                selected = rows;
+            } else {
+                long[] micros = chunk.micros;
+                long[] amounts = chunk.amounts;
+                for (int i = 0; i < rows; i++) {
+                    long time = micros[i];
+                    long amount = amounts[i];
+                    selection[selected] = i;
+                    selected += time >= fromMicros & time <= toMicros
+                            & amount >= minAmount & amount <= maxAmount ? 1 : 0;
+                }
+            }
+            if (type >= 0) {
+                selected = keep(chunk.types, type, selection, selected);
+            }
+            if (status >= 0) {
+                selected = keep(chunk.statuses, status, selection, selected);
+            }
+            if (user >= 0) {
+                int[] senders = chunk.senders;
+                int[] receivers = chunk.receivers;
+                int kept = 0;
+                for (int s = 0; s < selected; s++) {
+                    int i = selection[s];
+                    selection[kept] = i;
+                    kept += senders[i] == user | receivers[i] == user ? 1 : 0;
+                }
+                selected = kept;
+            }
+            return selected;
+        }
+
+        private static int keep(byte[] column, int value, int[] selection, int selected) {
+            int kept = 0;
+            for (int s = 0; s < selected; s++) {
+                int i = selection[s];
+                selection[kept] = i;
+                kept += column[i] == value ? 1 : 0;
+            }
+            return kept;
+        }
+
+        private void sumByType(Chunk chunk, int[] selection, int selected, Result into) {
+            long[] amounts = chunk.amounts;
+            byte[] types = chunk.types;
+            byte[] weights = chunk.weights;
+            long[] sums = into.sums;
+            long count = 0;
+            long volume = 0;
+            for (int s = 0; s < selected; s++) {
+                int i = selection[s];
+                int weight = weights[i];
+                long amount = amounts[i];
+                count += weight;
+                volume += weight * amount;
+                int key = types[i];
+                // Rows without a type count towards the totals only
+                if (key >= 0) {
+                    sums[2 * key] += weight;
+                    sums[2 * key + 1] += weight * amount;
+                }
+            }
+            into.count += count;
+            into.volume += volume;
+        }
+
+        private void sumByDay(Chunk chunk, int[] selection, int selected, Result into) {
+            long[] micros = chunk.micros;
+            long[] amounts = chunk.amounts;
+            byte[] weights = chunk.weights;
+            long[] sums = into.sums;
+            long count = 0;
+            long volume = 0;
+            // Rows arrive roughly in time order, so the previous row's day usually still applies
+            long dayStart = Long.MAX_VALUE;
+            long dayEnd = Long.MIN_VALUE;
+            int key = 0;
+            for (int s = 0; s < selected; s++) {
+                int i = selection[s];
+                long time = micros[i];
+                if (time < dayStart || time >= dayEnd) {
+                    long day = Math.floorDiv(time, MICROS_PER_DAY);
+                    dayStart = day * MICROS_PER_DAY;
+                    dayEnd = dayStart + MICROS_PER_DAY;
+                    key = (int) (day - firstDay);
+                }
+                int weight = weights[i];
+                long amount = amounts[i];
+                count += weight;
+                volume += weight * amount;
+                sums[2 * key] += weight;
+                sums[2 * key + 1] += weight * amount;
+            }
+            into.count += count;
+            into.volume += volume;
+        }
+
+        private void sumByCounterparty(Chunk chunk, int[] selection, int selected, Result into) {
+            long[] amounts = chunk.amounts;
+            int[] senders = chunk.senders;
+            int[] receivers = chunk.receivers;
+            byte[] weights = chunk.weights;
+            long[] sums = into.sums;
+            long count = 0;
+            long volume = 0;
+            for (int s = 0; s < selected; s++) {
+                int i = selection[s];
+                int weight = weights[i];
+                long amount = amounts[i];
+                count += weight;
+                volume += weight * amount;
+                // With a user filter the counterparty is whichever side is not that user
+                int key = user >= 0 && receivers[i] == user ? senders[i] : receivers[i];
+                // Rows without a counterparty count towards the totals only
+                if (key >= 0) {
+                    sums[2 * key] += weight;
+                    sums[2 * key + 1] += weight * amount;
+                }
+            }
+            into.count += count;
+            into.volume += volume;
+        }
+    }
+
+    /**
+     * Net count and volume per group key (type ordinal, day offset or user code) plus totals
+     * A key's count and volume sit side by side, so each row updates one cache line.
+     */
+    static final class Result {
+        final long[] sums;
+        long count;
+        long volume;
+        long scannedRows;
+        long skippedChunks;
+        // Epoch day of DAY key 0
+        long firstDay;
+
+        // Scratch row numbers for the chunk being scanned
+        final int[] selection = new int[CHUNK];
+
+        Result(int keys) {
+            sums = new long[2 * keys];
+        }
+
+        int keys() {
+            return sums.length / 2;
+        }
+
+        long count(int key) {
+            return sums[2 * key];
+        }
+
+        long volume(int key) {
+            return sums[2 * key + 1];
+        }
+
+        void merge(Result other) {
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] += other.sums[i];
+            }
+            count += other.count;
+            volume += other.volume;
+            scannedRows += other.scannedRows;
+            skippedChunks += other.skippedChunks;
+        }
+    }
+
+    private static final class Chunk {
+        static final int ROW_BYTES = 8 + 8 + 4 + 4 + 1 + 1 + 1;
+
+        final long[] micros = new long[CHUNK];
+        final long[] amounts = new long[CHUNK];
+        final int[] senders = new int[CHUNK];
+        final int[] receivers = new int[CHUNK];
+        final byte[] types = new byte[CHUNK];
+        final byte[] statuses = new byte[CHUNK];
+        final byte[] weights = new byte[CHUNK];
+        long minMicros = Long.MAX_VALUE;
+        long maxMicros = Long.MIN_VALUE;
+        long minAmount = Long.MAX_VALUE;
+        long maxAmount = Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,261 @@
+package com.walletsystem.service;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * One ordering of off-heap transaction rows: row numbers sorted oldest first by
+ * (timestamp, transaction ID) and read newest first
+ * Rows sit in chunks of at most CHUNK entries, so an out-of-order insert shifts one chunk
+ * while in-order inserts append. Each chunk keeps a mask of the types and statuses it
+ * holds, letting filtered scans skip whole chunks without touching their rows.
+ * Only int arrays are kept, so the collector never sees a per-transaction object.
+ * Not thread-safe; the owning store guards it with its read-write lock.
+ */
+final class TransactionRowIndex {
+
+    static final int CHUNK = 4096;
+
+    private int[][] chunks = new int[1][];
+    private int[] sizes = new int[1];
+    private int[] masks = new int[1];
+    private int chunkCount;
+    private int size;
+
+    /**
+     * Mask bit of a row's type and status, for chunk skipping
+     */
+    static int mask(int type, int status) {
+        return (type < 0 ? 0 : 1 << type) | (status < 0 ? 0 : 1 << (16 + status));
+    }
+
+    int size() {
+        return size;
+    }
+
+    void insert(TransactionRows rows, int row, int mask) {
+        if (chunkCount == 0) {
+            addChunk(0, new int[4], 0);
+        }
+        int chunk = chunkCount - 1;
+        int[] entries = chunks[chunk];
+        int count = sizes[chunk];
+        int position;
+        if (count == 0 || rows.compare(row, entries[count - 1]) > 0) {
+            // Rows mostly arrive in time order, so the newest end is tried first
+            position = count;
+        } else {
+            chunk = chunkBelow(row, rows);
+            entries = chunks[chunk];
+            count = sizes[chunk];
+            position = upperBound(rows, entries, count, row);
+        }
+
+        if (count == CHUNK) {
+            if (position == CHUNK && chunk == chunkCount - 1) {
+                addChunk(chunkCount, new int[CHUNK / 4], 0);
+                chunk++;
+                position = 0;
+            } else {
+                split(rows, chunk);
+                if (position > CHUNK / 2) {
+                    chunk++;
+                    position -= CHUNK / 2;
+                }
+            }
+            entries = chunks[chunk];
+            count = sizes[chunk];
+        }
+        if (count == entries.length) {
+            entries = Arrays.copyOf(entries, Math.min(CHUNK, count * 2));
+            chunks[chunk] = entries;
+        }
+        System.arraycopy(entries, position, entries, position + 1, count - position);
+        entries[position] = row;
+        sizes[chunk] = count + 1;
+        masks[chunk] |= mask;
+        size++;
+    }
+
+    void remove(TransactionRows rows, int row) {
+        if (chunkCount == 0) {
+            return;
+        }
+        int chunk = chunkBelow(row, rows);
+        int[] entries = chunks[chunk];
+        int count = sizes[chunk];
+        int position = upperBound(rows, entries, count, row) - 1;
+        if (position < 0 || entries[position] != row) {
+            return;
+        }
+        System.arraycopy(entries, position + 1, entries, position, count - position - 1);
+        sizes[chunk] = count - 1;
+        size--;
+        if (count == 1) {
+            removeChunk(chunk);
+        }
+    }
+
+    /**
+     * Copy rows newest first into the batch, starting at the newest row that is below the
+     * target and stopping at the first row older than fromMicros
+     * Rows must carry every bit of requiredMask and pass the filter (null = any). At most
+     * budget rows are examined per call; the batch records the last one so the next call
+     * can resume below it.
+     */
+    void scan(TransactionRows rows, IntPredicate below, long fromMicros, int requiredMask,
+              IntPredicate filter, int budget, Batch batch) {
+        batch.count = 0;
+        int chunk = lastChunkBelow(rows, below);
+        if (chunk < 0) {
+            batch.done = true;
+            return;
+        }
+        int position = lastBelow(chunks[chunk], sizes[chunk], below);
+        int examined = 0;
+        while (chunk >= 0) {
+            int[] entries = chunks[chunk];
+            if ((masks[chunk] & requiredMask) != requiredMask) {
+                // Nothing here can match; stop if the chunk already reaches past fromMicros
+                if (rows.micros(entries[0]) < fromMicros) {
+                    batch.done = true;
+                    return;
+                }
+                batch.last = entries[0];
+                examined += position + 1;
+            } else {
+                for (; position >= 0; position--) {
+                    int row = entries[position];
+                    if (rows.micros(row) < fromMicros) {
+                        batch.done = true;
+                        return;
+                    }
+                    batch.last = row;
+                    examined++;
+                    if (filter == null || filter.test(row)) {
+                        batch.rows[batch.count++] = row;
+                        if (batch.count == batch.rows.length) {
+                            return;
+                        }
+                    }
+                }
+            }
+            chunk--;
+            position = chunk < 0 ? -1 : sizes[chunk] - 1;
+            if (examined >= budget && chunk >= 0) {
+                return;
+            }
+        }
+        batch.done = true;
+    }
+
+    private int lastChunkBelow(TransactionRows rows, IntPredicate below) {
+        int low = 0;
+        int high = chunkCount - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (below.test(chunks[mid][0])) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private static int lastBelow(int[] entries, int count, IntPredicate below) {
+        int low = 0;
+        int high = count - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (below.test(entries[mid])) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    // Last chunk whose first row is not after the row, or chunk 0
+    private int chunkBelow(int row, TransactionRows rows) {
+        int found = lastChunkBelow(rows, entry -> rows.compare(entry, row) <= 0);
+        return Math.max(found, 0);
+    }
+
+    // First position whose row sorts after the given row
+    private static int upperBound(TransactionRows rows, int[] entries, int count, int row) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (rows.compare(entries[mid], row) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void split(TransactionRows rows, int chunk) {
+        int[] entries = chunks[chunk];
+        int half = CHUNK / 2;
+        int[] upper = new int[CHUNK];
+        System.arraycopy(entries, half, upper, 0, CHUNK - half);
+        sizes[chunk] = half;
+        masks[chunk] = maskOf(rows, entries, half);
+        addChunk(chunk + 1, upper, maskOf(rows, upper, CHUNK - half));
+        sizes[chunk + 1] = CHUNK - half;
+    }
+
+    private static int maskOf(TransactionRows rows, int[] entries, int count) {
+        int mask = 0;
+        for (int i = 0; i < count; i++) {
+            mask |= mask(rows.type(entries[i]), rows.status(entries[i]));
+        }
+        return mask;
+    }
+
+    private void addChunk(int at, int[] entries, int mask) {
+        if (chunkCount == chunks.length) {
+            int capacity = chunkCount * 2;
+            chunks = Arrays.copyOf(chunks, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+            masks = Arrays.copyOf(masks, capacity);
+        }
+        System.arraycopy(chunks, at, chunks, at + 1, chunkCount - at);
+        System.arraycopy(sizes, at, sizes, at + 1, chunkCount - at);
+        System.arraycopy(masks, at, masks, at + 1, chunkCount - at);
+        chunks[at] = entries;
+        sizes[at] = 0;
+        masks[at] = mask;
+        chunkCount++;
+    }
+
+    private void removeChunk(int at) {
+        System.arraycopy(chunks, at + 1, chunks, at, chunkCount - at - 1);
+        System.arraycopy(sizes, at + 1, sizes, at, chunkCount - at - 1);
+        System.arraycopy(masks, at + 1, masks, at, chunkCount - at - 1);
+        chunkCount--;
+        chunks[chunkCount] = null;
+    }
+
+    /**
+     * Rows copied by one scan call, plus where the next call resumes
+     */
+    static final class Batch {
+        final int[] rows;
+        int count;
+        int last = -1;
+        boolean done;
+
+        Batch(int capacity) {
+            this.rows = new int[capacity];
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package com.walletsystem.service;
+
+import com.walletsystem.model.Transaction;
+import com.walletsystem.utils.EpochMicros;
+import com.walletsystem.utils.IdGenerator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fixed-width 48-byte transaction rows in off-heap segments
+ * Row layout (byte offset: field):
+ *   0: ID, the numeric form of a generated ID or a string reference
+ *   8: timestamp and 16: creation time, both epoch micros
+ *  24: amount in minor units
+ *  32: sender and 36: receiver, as user dictionary codes
+ *  40: description, as a string reference
+ *  44: type, 45: status (ordinals, -1 for null), 46: flags
+ * Strings that are not user IDs (descriptions, and transaction IDs IdGenerator did not
+ * produce) go to an append-only string area; a small cache shares repeated descriptions.
+ * Segments are direct buffers, or regions of a memory-mapped scratch file when a
+ * directory is given. Rows are appended by one writer at a time and never change
+ * afterwards except for the dead flag, so readers holding a published row number
+ * decode them without locking.
+ */
+final class TransactionRows implements Closeable {
+
+    static final int ROW_BYTES = 48;
+
+    private static final int ROW_SEGMENT_SHIFT = 16;
+    private static final int ROW_SEGMENT_MASK = (1 << ROW_SEGMENT_SHIFT) - 1;
+    private static final int ROW_SEGMENT_BYTES = ROW_BYTES << ROW_SEGMENT_SHIFT;
+    private static final int STRING_SEGMENT_SHIFT = 22;
+    private static final int STRING_SEGMENT_BYTES = 1 << STRING_SEGMENT_SHIFT;
+    private static final int STRING_CACHE_SIZE = 4096;
+    private static final String ID_PREFIX = "TXN";
+
+    private static final int ID = 0;
+    private static final int TIMESTAMP = 8;
+    private static final int CREATED_AT = 16;
+    private static final int AMOUNT = 24;
+    private static final int SENDER = 32;
+    private static final int RECEIVER = 36;
+    private static final int DESCRIPTION = 40;
+    private static final int TYPE = 44;
+    private static final int STATUS = 45;
+    private static final int FLAGS = 46;
+
+    private static final byte FLAG_STRING_ID = 1;
+    private static final byte FLAG_DEAD = 2;
+
+    private static final Transaction.TransactionType[] TYPES = Transaction.TransactionType.values();
+    private static final Transaction.TransactionStatus[] STATUSES = Transaction.TransactionStatus.values();
+
+    // Scratch file backing the segments, or null for direct buffers
+    private final FileChannel channel;
+    private long fileEnd;
+
+    private volatile ByteBuffer[] rowSegments = new ByteBuffer[0];
+    private volatile ByteBuffer[] stringSegments = new ByteBuffer[0];
+    private int rowCount;
+    // Next free byte of the string area; entries are 4-byte aligned and never span segments
+    private long stringEnd;
+    private final Map<String, Integer> stringCache = new HashMap<>();
+
+    private final UserDictionary users = new UserDictionary();
+
+    TransactionRows(Path directory) {
+        if (directory == null) {
+            channel = null;
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            Path file = Files.createTempFile(directory, "transactions-", ".rows");
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create the transaction store file in " + directory, e);
+        }
+    }
+
+    /**
+     * Encode a transaction as the next row and return its number
+     * Callers serialize appends and publish the row number themselves
+     */
+    int append(Transaction transaction) {
+        int row = rowCount;
+        if (row == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Transaction store is full");
+        }
+        ByteBuffer segment = rowSegment(row >>> ROW_SEGMENT_SHIFT);
+        int base = (row & ROW_SEGMENT_MASK) * ROW_BYTES;
+
+        byte flags = 0;
+        long numericId = numericId(transaction.getTransactionId());
+        if (numericId < 0) {
+            flags = FLAG_STRING_ID;
+            segment.putLong(base + ID, stringRef(transaction.getTransactionId(), false));
+        } else {
+            segment.putLong(base + ID, numericId);
+        }
+        segment.putLong(base + TIMESTAMP, EpochMicros.of(transaction.getTimestamp()));
+        segment.putLong(base + CREATED_AT, EpochMicros.of(transaction.getCreatedAt()));
+        segment.putLong(base + AMOUNT, transaction.getAmount());
+        segment.putInt(base + SENDER, users.code(transaction.getSenderId()));
+        segment.putInt(base + RECEIVER, users.code(transaction.getReceiverId()));
+        segment.putInt(base + DESCRIPTION, stringRef(transaction.getDescription(), true));
+        segment.put(base + TYPE, transaction.getType() == null ? -1 : (byte) transaction.getType().ordinal());
+        segment.put(base + STATUS, transaction.getStatus() == null ? -1 : (byte) transaction.getStatus().ordinal());
+        segment.put(base + FLAGS, flags);
+        rowCount = row + 1;
+        return row;
+    }
+
+    /**
+     * Build the Transaction object for a row; the only place rows become objects
+     * Rows are immutable, so the update time is the creation time
+     */
+    Transaction materialize(int row) {
+        ByteBuffer segment = rowSegments[row >>> ROW_SEGMENT_SHIFT];
+        int base = (row & ROW_SEGMENT_MASK) * ROW_BYTES;
+
+        byte type = segment.get(base + TYPE);
+        byte status = segment.get(base + STATUS);
+        int description = segment.getInt(base + DESCRIPTION);
+        return new Transaction(transactionId(row),
+                users.name(segment.getInt(base + SENDER)),
+                users.name(segment.getInt(base + RECEIVER)),
+                segment.getLong(base + AMOUNT),
+                type < 0 ? null : TYPES[type],
+                status < 0 ? null : STATUSES[status],
+                description < 0 ? null : string(description),
+                EpochMicros.toDateTime(segment.getLong(base + TIMESTAMP)),
+                EpochMicros.toDateTime(segment.getLong(base + CREATED_AT)));
+    }
+
+    long micros(int row) {
+        return rowSegments[row >>> ROW_SEGMENT_SHIFT].getLong((row & ROW_SEGMENT_MASK) * ROW_BYTES + TIMESTAMP);
+    }
+
+    int sender(int row) {
+        return rowSegments[row >>> ROW_SEGMENT_SHIFT].getInt((row & ROW_SEGMENT_MASK) * ROW_BYTES + SENDER);
+    }
+
+    int receiver(int row) {
+        return rowSegments[row >>> ROW_SEGMENT_SHIFT].getInt((row & ROW_SEGMENT_MASK) * ROW_BYTES + RECEIVER);
+    }
+
+    int type(int row) {
+        return rowSegments[row >>> ROW_SEGMENT_SHIFT].get((row & ROW_SEGMENT_MASK) * ROW_BYTES + TYPE);
+    }
+
+    int status(int row) {
+        return rowSegments[row >>> ROW_SEGMENT_SHIFT].get((row & ROW_SEGMENT_MASK) * ROW_BYTES + STATUS);
+    }
+
+    /**
+     * Numeric ID of a row, or -1 when its ID is held as a string
+     */
+    long numericId(int row) {
+        ByteBuffer segment = rowSegments[row >>> ROW_SEGMENT_SHIFT];
+        int base = (row & ROW_SEGMENT_MASK) * ROW_BYTES;
+        return (segment.get(base + FLAGS) & FLAG_STRING_ID) != 0 ? -1 : segment.getLong(base + ID);
+    }
+
+    String transactionId(int row) {
+        long numericId = numericId(row);
+        if (numericId >= 0) {
+            return IdGenerator.format(ID_PREFIX, numericId);
+        }
+        int ref = (int) rowSegments[row >>> ROW_SEGMENT_SHIFT].getLong((row & ROW_SEGMENT_MASK) * ROW_BYTES + ID);
+        return ref < 0 ? null : string(ref);
+    }
+
+    /**
+     * Whether a row holds the given ID; numericId is numericId(transactionId)
+     */
+    boolean hasId(int row, String transactionId, long numericId) {
+        long rowId = numericId(row);
+        if (rowId >= 0 || numericId >= 0) {
+            return rowId == numericId;
+        }
+        return transactionId.equals(transactionId(row));
+    }
+
+    boolean isDead(int row) {
+        ByteBuffer segment = rowSegments[row >>> ROW_SEGMENT_SHIFT];
+        return (segment.get((row & ROW_SEGMENT_MASK) * ROW_BYTES + FLAGS) & FLAG_DEAD) != 0;
+    }
+
+    void kill(int row) {
+        ByteBuffer segment = rowSegments[row >>> ROW_SEGMENT_SHIFT];
+        int index = (row & ROW_SEGMENT_MASK) * ROW_BYTES + FLAGS;
+        segment.put(index, (byte) (segment.get(index) | FLAG_DEAD));
+    }
+
+    /**
+     * Order of two rows by (timestamp, transaction ID), oldest first
+     */
+    int compare(int a, int b) {
+        int byTime = Long.compare(micros(a), micros(b));
+        if (byTime != 0 || a == b) {
+            return byTime;
+        }
+        long idA = numericId(a);
+        long idB = numericId(b);
+        if (idA >= 0 && idB >= 0) {
+            // Generated IDs are fixed width, so numeric order is string order
+            return Long.compare(idA, idB);
+        }
+        return compareIds(transactionId(a), transactionId(b));
+    }
+
+    /**
+     * Order of a row against a cursor key, oldest first; a null key ID is newer than any ID
+     */
+    int compare(int row, long micros, String transactionId, long numericId) {
+        int byTime = Long.compare(micros(row), micros);
+        if (byTime != 0) {
+            return byTime;
+        }
+        if (transactionId == null) {
+            return -1;
+        }
+        long rowId = numericId(row);
+        if (rowId >= 0 && numericId >= 0) {
+            return Long.compare(rowId, numericId);
+        }
+        return compareIds(transactionId(row), transactionId);
+    }
+
+    private static int compareIds(String a, String b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        return a.compareTo(b);
+    }
+
+    /**
+     * Dictionary code of a known user ID, or -1
+     */
+    int findUser(String userId) {
+        return users.find(userId);
+    }
+
+    /**
+     * Off-heap bytes reserved for rows and strings
+     */
+    long allocatedBytes() {
+        return (long) rowSegments.length * ROW_SEGMENT_BYTES + (long) stringSegments.length * STRING_SEGMENT_BYTES;
+    }
+
+    /**
+     * The numeric form of a generated transaction ID, or -1 if it must be stored as a string
+     */
+    static long numericId(String transactionId) {
+        if (transactionId == null || !transactionId.startsWith(ID_PREFIX)) {
+            return -1;
+        }
+        // parse also accepts lower case, which would not round-trip through format
+        for (int i = ID_PREFIX.length(); i < transactionId.length(); i++) {
+            if (Character.isLowerCase(transactionId.charAt(i))) {
+                return -1;
+            }
+        }
+        return IdGenerator.parse(transactionId);
+    }
+
+    private int stringRef(String value, boolean shared) {
+        if (value == null) {
+            return -1;
+        }
+        if (shared) {
+            Integer cached = stringCache.get(value);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = (4 + bytes.length + 3) & ~3;
+        if (length > STRING_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("String too long for the transaction store: " + bytes.length + " bytes");
+        }
+        long offset = stringEnd;
+        if ((offset & (STRING_SEGMENT_BYTES - 1)) + length > STRING_SEGMENT_BYTES) {
+            offset = ((offset >>> STRING_SEGMENT_SHIFT) + 1) << STRING_SEGMENT_SHIFT;
+        }
+        if (((offset + length) >>> 2) > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Transaction store string area is full");
+        }
+        ByteBuffer segment = stringSegment((int) (offset >>> STRING_SEGMENT_SHIFT));
+        int position = (int) (offset & (STRING_SEGMENT_BYTES - 1));
+        segment.putInt(position, bytes.length);
+        segment.put(position + 4, bytes);
+        stringEnd = offset + length;
+
+        int ref = (int) (offset >>> 2);
+        if (shared) {
+            if (stringCache.size() >= STRING_CACHE_SIZE) {
+                stringCache.clear();
+            }
+            stringCache.put(value, ref);
+        }
+        return ref;
+    }
+
+    private String string(int ref) {
+        long offset = (long) ref << 2;
+        ByteBuffer segment = stringSegments[(int) (offset >>> STRING_SEGMENT_SHIFT)];
+        int position = (int) (offset & (STRING_SEGMENT_BYTES - 1));
+        byte[] bytes = new byte[segment.getInt(position)];
+        segment.get(position + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer rowSegment(int index) {
+        ByteBuffer[] segments = rowSegments;
+        if (index < segments.length) {
+            return segments[index];
+        }
+        segments = Arrays.copyOf(segments, index + 1);
+        segments[index] = allocate(ROW_SEGMENT_BYTES);
+        rowSegments = segments;
+        return segments[index];
+    }
+
+    private ByteBuffer stringSegment(int index) {
+        ByteBuffer[] segments = stringSegments;
+        if (index < segments.length) {
+            return segments[index];
+        }
+        segments = Arrays.copyOf(segments, index + 1);
+        segments[index] = allocate(STRING_SEGMENT_BYTES);
+        stringSegments = segments;
+        return segments[index];
+    }
+
+    private ByteBuffer allocate(int bytes) {
+        if (channel == null) {
+            return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        }
+        try {
+            ByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE, fileEnd, bytes);
+            fileEnd += bytes;
+            return region.order(ByteOrder.nativeOrder());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map a transaction store segment", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
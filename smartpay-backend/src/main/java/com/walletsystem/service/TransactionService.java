@@ -1,12 +1,29 @@
 package com.walletsystem.service;
 
+import com.walletsystem.model.Money;
 import com.walletsystem.model.Transaction;
+import com.walletsystem.model.dto.TransactionPage;
+import com.walletsystem.model.dto.TransactionSummary;
+import com.walletsystem.persistence.TransactionJournal;
+import com.walletsystem.utils.IdGenerator;
+import com.walletsystem.utils.EpochMicros;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Transaction Service demonstrating business logic and mock data
@@ -15,28 +32,159 @@ import java.util.stream.Collectors;
 @Service
 public class TransactionService {
     
-    // In-memory storage for transactions
-    private final Map<String, Transaction> transactions = new ConcurrentHashMap<>();
-    private final Map<String, List<String>> userTransactions = new ConcurrentHashMap<>();
+    @Autowired
+    private TransactionJournal journal;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private StatsService statsService;
+    
+    @Autowired
+    private LiveFeedService liveFeedService;
+    
+    @Autowired
+    private TransactionAnalyticsService analyticsService;
+    
+    // Storage backend: HEAP keeps Transaction objects, OFF_HEAP keeps fixed-width rows
+    // outside the heap and builds objects only when they are read
+    @Value("${wallet.transactions.store:HEAP}")
+    private StoreMode storeMode;
+    
+    // OFF_HEAP only: directory for a memory-mapped scratch file; blank = direct memory
+    @Value("${wallet.transactions.store-dir:}")
+    private String storeDir;
+    
+    // In-memory storage for transactions and their newest-first indexes
+    private TransactionStore store;
+    // Per-user totals of completed transactions, updated as transactions are indexed
+    private final Map<String, UserTransactionAggregate> userAggregates = new ConcurrentHashMap<>();
+    // Restored transfers still PENDING: debited by the sender's shard, credit not yet journaled
+    private final Set<String> restoredInFlight = ConcurrentHashMap.newKeySet();
+    
+    // Metrics: latency of the write path and of history reads
+    private Timer addTransactionTimer;
+    private Timer historyTimer;
+    private Timer historyPageTimer;
+    
+    @PostConstruct
+    public void init() {
+        if (storeMode == StoreMode.OFF_HEAP) {
+            OffHeapTransactionStore offHeap =
+                    new OffHeapTransactionStore(storeDir == null || storeDir.isBlank() ? null : Path.of(storeDir));
+            Gauge.builder("wallet.transactions.store.bytes", offHeap, OffHeapTransactionStore::allocatedBytes)
+                    .description("Off-heap bytes reserved for transaction rows")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+            store = offHeap;
+        } else {
+            store = new HeapTransactionStore();
+        }
+        
+        addTransactionTimer = ServiceMetrics.timer(meterRegistry, "transaction", "addTransaction");
+        historyTimer = ServiceMetrics.timer(meterRegistry, "transaction", "getTransactionHistory");
+        historyPageTimer = ServiceMetrics.timer(meterRegistry, "transaction", "getTransactionHistoryPage");
+        Gauge.builder("wallet.transactions", this, service -> service.store.size())
+                .description("Transactions held in memory")
+                .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    public void close() {
+        store.close();
+    }
     
     /**
      * Add a new transaction
      * Demonstrates encapsulation
      */
     public Transaction addTransaction(Transaction transaction) {
-        transactions.put(transaction.getTransactionId(), transaction);
-        
-        // Add to user transaction lists
-        if (transaction.getSenderId() != null) {
-            userTransactions.computeIfAbsent(transaction.getSenderId(), k -> new ArrayList<>())
-                    .add(transaction.getTransactionId());
+        long start = System.nanoTime();
+        try {
+            indexTransaction(transaction);
+            journal.appendTransaction(transaction);
+            statsService.recordTransaction(transaction.getAmount());
+            liveFeedService.publishTransaction(transaction);
+            return transaction;
+        } finally {
+            ServiceMetrics.record(addTransactionTimer, start);
         }
-        if (transaction.getReceiverId() != null) {
-            userTransactions.computeIfAbsent(transaction.getReceiverId(), k -> new ArrayList<>())
-                    .add(transaction.getTransactionId());
+    }
+    
+    /**
+     * Index a transaction that the caller journals together with the wallet change behind it
+     * Indexed before the frame is written, so a snapshot taken in between still holds it;
+     * follow with commitTransaction once the frame is durable, or abortTransaction if it failed
+     * Demonstrates encapsulation
+     */
+    public void stageTransaction(Transaction transaction) {
+        long start = System.nanoTime();
+        try {
+            indexTransaction(transaction);
+        } finally {
+            ServiceMetrics.record(addTransactionTimer, start);
         }
-        
-        return transaction;
+    }
+    
+    /**
+     * Announce a staged transaction whose journal frame is durable
+     * Demonstrates encapsulation
+     */
+    public void commitTransaction(Transaction transaction) {
+        statsService.recordTransaction(transaction.getAmount());
+        liveFeedService.publishTransaction(transaction);
+    }
+    
+    /**
+     * Mark a staged transaction failed after its journal frame could not be written
+     * Demonstrates encapsulation
+     */
+    public void abortTransaction(Transaction transaction) {
+        // Indexed as a replacement, so the COMPLETED version is retracted from every total
+        indexTransaction(transaction.withStatus(Transaction.TransactionStatus.FAILED));
+    }
+    
+    /**
+     * Restore a transaction read back from the journal, without journaling it again
+     * Demonstrates encapsulation
+     */
+    public void restoreTransaction(Transaction transaction) {
+        // Snapshot and journal tail may overlap, so replay must be idempotent; the one
+        // replacement is a cross-shard transfer's PENDING record by its settled one
+        String transactionId = transaction.getTransactionId();
+        if (!store.contains(transactionId)) {
+            indexTransaction(transaction);
+            if (transaction.getStatus() == Transaction.TransactionStatus.PENDING) {
+                restoredInFlight.add(transactionId);
+            }
+        } else if (transaction.getStatus() != Transaction.TransactionStatus.PENDING
+                && restoredInFlight.remove(transactionId)) {
+            indexTransaction(transaction);
+        }
+    }
+    
+    /**
+     * Transfers recovery left PENDING, whose receivers have not been credited yet
+     * Each is returned once; the caller credits the receiver and stages the settled record
+     */
+    public List<Transaction> takeRestoredInFlight() {
+        List<Transaction> inFlight = new ArrayList<>(restoredInFlight.size());
+        for (String transactionId : restoredInFlight) {
+            inFlight.add(store.get(transactionId));
+        }
+        restoredInFlight.clear();
+        return inFlight;
+    }
+    
+    private void indexTransaction(Transaction transaction) {
+        Transaction previous = store.put(transaction);
+        if (previous != null) {
+            aggregate(previous, -1);
+            analyticsService.retract(previous);
+        }
+        aggregate(transaction, 1);
+        analyticsService.record(transaction);
     }
     
     /**
@@ -44,18 +192,66 @@ public class TransactionService {
      * Demonstrates polymorphism and business logic
      */
     public List<Transaction> getTransactionHistory(String userId) {
-        List<String> userTransactionIds = userTransactions.get(userId);
+        long start = System.nanoTime();
+        try {
+            return readHistory(userId);
+        } finally {
+            ServiceMetrics.record(historyTimer, start);
+        }
+    }
+    
+    private List<Transaction> readHistory(String userId) {
+        int count = store.userCount(userId);
         
-        if (userTransactionIds == null || userTransactionIds.isEmpty()) {
+        if (count == 0) {
             // Generate mock transaction history
             return generateMockTransactionHistory(userId);
         }
         
-        return userTransactionIds.stream()
-                .map(transactions::get)
-                .filter(Objects::nonNull)
-                .sorted((t1, t2) -> t2.getTimestamp().compareTo(t1.getTimestamp()))
-                .collect(Collectors.toList());
+        // Index is already newest first, so no sort is needed
+        List<Transaction> history = new ArrayList<>(count);
+        store.scan(userId, null, null, null, Long.MIN_VALUE, Long.MAX_VALUE).forEach(history::add);
+        return history;
+    }
+    
+    /**
+     * Get one page of a user's transaction history, newest first
+     * The cursor is opaque; pass back the previous page's nextCursor to continue
+     * Demonstrates encapsulation and business logic
+     */
+    public TransactionPage getTransactionHistoryPage(String userId, String cursor, int limit) {
+        long start = System.nanoTime();
+        try {
+            return readHistoryPage(userId, cursor, limit);
+        } finally {
+            ServiceMetrics.record(historyPageTimer, start);
+        }
+    }
+    
+    private TransactionPage readHistoryPage(String userId, String cursor, int limit) {
+        TransactionTimeIndex.Key after = TransactionTimeIndex.decodeCursor(cursor);
+        
+        if (after == null && store.userCount(userId) == 0) {
+            // Generate mock transaction history
+            generateMockTransactionHistory(userId);
+        }
+        
+        return toPage(store.scan(userId, null, null, after, Long.MIN_VALUE, Long.MAX_VALUE), limit);
+    }
+    
+    /**
+     * Take one page from a newest-first scan and derive the next cursor from its last entry
+     */
+    private TransactionPage toPage(Stream<Transaction> scan, int limit) {
+        List<Transaction> page = new ArrayList<>(Math.min(limit, 256));
+        Iterator<Transaction> transactions = scan.iterator();
+        while (page.size() < limit && transactions.hasNext()) {
+            page.add(transactions.next());
+        }
+        String nextCursor = page.size() == limit
+                ? TransactionTimeIndex.encodeCursor(TransactionTimeIndex.keyOf(page.get(page.size() - 1)))
+                : null;
+        return new TransactionPage(page, nextCursor);
     }
     
     /**
@@ -64,16 +260,17 @@ public class TransactionService {
      */
     private List<Transaction> generateMockTransactionHistory(String userId) {
         List<Transaction> mockTransactions = new ArrayList<>();
-        int transactionCount = 5 + (int)(Math.random() * 6); // 5-10 transactions
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int transactionCount = 5 + random.nextInt(6); // 5-10 transactions
         
         for (int i = 0; i < transactionCount; i++) {
-            String transactionId = "TXN" + (int)(Math.random() * 10000);
-            double amount = 50 + (Math.random() * 500); // Random amount between 50-550
-            Transaction.TransactionType type = Math.random() < 0.5 ? 
+            String transactionId = IdGenerator.generateTransactionId();
+            long amount = Money.ofMajor(50 + (random.nextDouble() * 500)); // Random amount between 50-550
+            Transaction.TransactionType type = random.nextBoolean() ? 
                 Transaction.TransactionType.CREDIT : Transaction.TransactionType.DEBIT;
             
             String senderId = type == Transaction.TransactionType.CREDIT ? "SYSTEM" : userId;
-            String receiverId = type == Transaction.TransactionType.CREDIT ? userId : "MERCHANT" + (int)(Math.random() * 100);
+            String receiverId = type == Transaction.TransactionType.CREDIT ? userId : "MERCHANT" + random.nextInt(100);
             
             Transaction transaction = new Transaction(
                 transactionId,
@@ -85,7 +282,7 @@ public class TransactionService {
             );
             
             // Set random timestamp within last 30 days
-            LocalDateTime randomTime = LocalDateTime.now().minusDays((int)(Math.random() * 30));
+            LocalDateTime randomTime = LocalDateTime.now().minusDays(random.nextInt(30));
             transaction.setTimestamp(randomTime);
             
             mockTransactions.add(transaction);
@@ -115,7 +312,46 @@ public class TransactionService {
         String[] descriptions = type == Transaction.TransactionType.CREDIT ? 
             creditDescriptions : debitDescriptions;
         
-        return descriptions[(int)(Math.random() * descriptions.length)];
+        return descriptions[ThreadLocalRandom.current().nextInt(descriptions.length)];
+    }
+    
+    /**
+     * Apply (sign 1) or retract (sign -1) a completed transaction on its sender's and receiver's totals
+     */
+    private void aggregate(Transaction transaction, int sign) {
+        if (transaction.getStatus() != Transaction.TransactionStatus.COMPLETED || transaction.getTimestamp() == null) {
+            return;
+        }
+        long day = transaction.getTimestamp().toLocalDate().toEpochDay();
+        String senderId = transaction.getSenderId();
+        String receiverId = transaction.getReceiverId();
+        long amount = transaction.getAmount();
+        if (senderId != null && senderId.equals(receiverId)) {
+            userAggregates.computeIfAbsent(senderId, k -> new UserTransactionAggregate())
+                    .apply(day, amount, amount, transaction.getType(), sign);
+            return;
+        }
+        if (senderId != null) {
+            userAggregates.computeIfAbsent(senderId, k -> new UserTransactionAggregate())
+                    .apply(day, 0, amount, transaction.getType(), sign);
+        }
+        if (receiverId != null) {
+            userAggregates.computeIfAbsent(receiverId, k -> new UserTransactionAggregate())
+                    .apply(day, amount, 0, transaction.getType(), sign);
+        }
+    }
+    
+    /**
+     * Money in/out, counts by type and the last 30 days of daily totals for a user
+     * Served from totals maintained on insert, so the cost does not depend on history size
+     * Demonstrates encapsulation and business logic
+     */
+    public TransactionSummary getTransactionSummary(String userId) {
+        UserTransactionAggregate aggregate = userAggregates.get(userId);
+        LocalDate today = LocalDate.now();
+        return aggregate == null
+                ? UserTransactionAggregate.empty(userId, today)
+                : aggregate.summarize(userId, today);
     }
     
     /**
@@ -123,7 +359,7 @@ public class TransactionService {
      * Demonstrates encapsulation
      */
     public Transaction getTransactionById(String transactionId) {
-        return transactions.get(transactionId);
+        return store.get(transactionId);
     }
     
     /**
@@ -131,7 +367,46 @@ public class TransactionService {
      * Demonstrates encapsulation
      */
     public List<Transaction> getAllTransactions() {
-        return new ArrayList<>(transactions.values());
+        return store.stream().collect(Collectors.toList());
+    }
+    
+    /**
+     * Stream over the live transaction store without copying it
+     * Demonstrates encapsulation
+     */
+    public Stream<Transaction> streamAllTransactions() {
+        return store.stream();
+    }
+    
+    /**
+     * Lazily stream transactions matching optional type, time-range and user filters
+     * Nothing is copied; with a user filter only that user's index is walked
+     * Demonstrates polymorphism
+     */
+    public Stream<Transaction> streamTransactions(Transaction.TransactionType type, LocalDateTime from,
+                                                  LocalDateTime to, String userId) {
+        long fromMicros = from == null ? Long.MIN_VALUE : EpochMicros.of(from);
+        long toMicros = to == null ? Long.MAX_VALUE : EpochMicros.of(to);
+        
+        if (userId == null && type == null && from == null && to == null) {
+            return store.stream();
+        }
+        return store.scan(userId, type, null, null, fromMicros, toMicros);
+    }
+    
+    /**
+     * Get one page of transactions matching optional type, status and time-range filters, newest first
+     * Walks the most selective maintained index from the cursor, so a page costs one
+     * skip-list seek plus a bounded scan instead of a full-store sort
+     * Demonstrates polymorphism and business logic
+     */
+    public TransactionPage queryTransactions(Transaction.TransactionType type, Transaction.TransactionStatus status,
+                                             LocalDateTime from, LocalDateTime to, String cursor, int limit) {
+        TransactionTimeIndex.Key after = TransactionTimeIndex.decodeCursor(cursor);
+        long fromMicros = from == null ? Long.MIN_VALUE : EpochMicros.of(from);
+        long toMicros = to == null ? Long.MAX_VALUE : EpochMicros.of(to);
+        
+        return toPage(store.scan(null, type, status, after, fromMicros, toMicros), limit);
     }
     
     /**
@@ -139,9 +414,13 @@ public class TransactionService {
      * Demonstrates polymorphism
      */
     public List<Transaction> getTransactionsByType(Transaction.TransactionType type) {
-        return transactions.values().stream()
-                .filter(transaction -> transaction.getType() == type)
-                .sorted((t1, t2) -> t2.getTimestamp().compareTo(t1.getTimestamp()))
+        // The type index is already newest first, so no sort is needed
+        return store.scan(null, type, null, null, Long.MIN_VALUE, Long.MAX_VALUE)
                 .collect(Collectors.toList());
     }
+    
+    // Enum for the transaction storage backend
+    public enum StoreMode {
+        HEAP, OFF_HEAP
+    }
 }
@@ -0,0 +1,48 @@
+package com.walletsystem.service;
+
+import com.walletsystem.model.Transaction;
+
+import java.io.Closeable;
+import java.util.stream.Stream;
+
+/**
+ * Storage behind TransactionService: transactions by ID plus the newest-first orderings
+ * that history, paging and search walk
+ * Scans are lazy and resume from a keyset cursor (TransactionTimeIndex.Key), so a page
+ * costs one seek plus the page whichever backend holds the records.
+ */
+interface TransactionStore extends Closeable {
+
+    /**
+     * Store a transaction, replacing any with the same ID
+     * Returns the replaced transaction, or null
+     */
+    Transaction put(Transaction transaction);
+
+    Transaction get(String transactionId);
+
+    boolean contains(String transactionId);
+
+    int size();
+
+    /**
+     * Every transaction, in no particular order
+     */
+    Stream<Transaction> stream();
+
+    /**
+     * Number of transactions a user sent or received
+     */
+    int userCount(String userId);
+
+    /**
+     * Lazily stream transactions older than the cursor and within [fromMicros, toMicros], newest first
+     * A null user, type or status matches any; with a user only that user's transactions are walked
+     */
+    Stream<Transaction> scan(String userId, Transaction.TransactionType type, Transaction.TransactionStatus status,
+                             TransactionTimeIndex.Key after, long fromMicros, long toMicros);
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,107 @@
+package com.walletsystem.service;
+
+import com.walletsystem.model.Transaction;
+import com.walletsystem.utils.EpochMicros;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * Concurrent index of transaction IDs kept newest first
+ * Keys are (timestamp micros, transaction ID) so equal timestamps stay distinct,
+ * and a key doubles as an opaque keyset-pagination cursor
+ */
+final class TransactionTimeIndex {
+
+    private final ConcurrentSkipListSet<Key> keys = new ConcurrentSkipListSet<>();
+
+    void add(long micros, String transactionId) {
+        keys.add(new Key(micros, transactionId));
+    }
+
+    void remove(long micros, String transactionId) {
+        keys.remove(new Key(micros, transactionId));
+    }
+
+    int size() {
+        return keys.size();
+    }
+
+    /**
+     * Lazily stream keys older than the cursor, within [fromMicros, toMicros], newest first
+     */
+    Stream<Key> scan(Key after, long fromMicros, long toMicros) {
+        NavigableSet<Key> view;
+        Key newest = new Key(toMicros, null);
+        if (after != null && after.compareTo(newest) > 0) {
+            view = keys.tailSet(after, false);
+        } else {
+            view = keys.tailSet(newest, true);
+        }
+        return view.stream().takeWhile(key -> key.micros >= fromMicros);
+    }
+
+    /**
+     * Key a stored transaction is indexed under, and the cursor that resumes just after it
+     */
+    static Key keyOf(Transaction transaction) {
+        return new Key(EpochMicros.of(transaction.getTimestamp()), transaction.getTransactionId());
+    }
+
+    static String encodeCursor(Key key) {
+        String raw = key.micros + ":" + key.transactionId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Key decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new Key(Long.parseLong(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Index key ordered by timestamp descending, then transaction ID descending
+     * A null ID sorts before every ID with the same timestamp
+     */
+    static final class Key implements Comparable<Key> {
+        final long micros;
+        final String transactionId;
+
+        Key(long micros, String transactionId) {
+            this.micros = micros;
+            this.transactionId = transactionId;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byTime = Long.compare(other.micros, micros);
+            if (byTime != 0) {
+                return byTime;
+            }
+            if (transactionId == null || other.transactionId == null) {
+                return transactionId == null ? (other.transactionId == null ? 0 : -1) : 1;
+            }
+            return other.transactionId.compareTo(transactionId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && compareTo(key) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(micros) * 31 + (transactionId == null ? 0 : transactionId.hashCode());
+        }
+    }
+}
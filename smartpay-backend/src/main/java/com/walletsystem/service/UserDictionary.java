@@ -0,0 +1,59 @@
+package com.walletsystem.service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dense int codes for user IDs, handed out in first-seen order
+ * Adding a code must be serialized by the owner; lookups and names are lock-free, and a
+ * reader that sees a code also sees its name.
+ */
+final class UserDictionary {
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[1024];
+    private volatile int size;
+
+    /**
+     * Code of a user ID, adding it if new; -1 for null
+     */
+    int code(String userId) {
+        if (userId == null) {
+            return -1;
+        }
+        Integer code = codes.get(userId);
+        if (code != null) {
+            return code;
+        }
+        int next = size;
+        String[] current = names;
+        if (next == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[next] = userId;
+        names = current;
+        size = next + 1;
+        codes.put(userId, next);
+        return next;
+    }
+
+    /**
+     * Code of a known user ID, or -1
+     */
+    int find(String userId) {
+        Integer code = userId == null ? null : codes.get(userId);
+        return code == null ? -1 : code;
+    }
+
+    String name(int code) {
+        return code < 0 ? null : names[code];
+    }
+
+    /**
+     * Codes handed out so far; every code seen in published data is below this
+     */
+    int size() {
+        return size;
+    }
+}
@@ -3,10 +3,23 @@ package com.walletsystem.service;
 import com.walletsystem.model.User;
 import com.walletsystem.model.dto.UserLoginRequest;
 import com.walletsystem.model.dto.UserRegistrationRequest;
+import com.walletsystem.persistence.TransactionJournal;
+import com.walletsystem.utils.IdGenerator;
+import com.walletsystem.utils.PasswordHasher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 /**
  * User Service demonstrating business logic and mock data management
@@ -15,33 +28,93 @@ import java.util.concurrent.ConcurrentHashMap;
 @Service
 public class UserService {
     
+    @Autowired
+    private TransactionJournal journal;
+    
+    @Autowired
+    private SessionStore sessionStore;
+    
+    @Autowired
+    private StatelessTokenService statelessTokens;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Token mode: SESSION keeps sessions on this node, STATELESS issues signed tokens any node can verify
+    @Value("${wallet.auth.token-mode:SESSION}")
+    private TokenMode tokenMode;
+    
+    // Request attribute caching the user authenticated by validateToken for the current request
+    private static final String AUTHENTICATED_USER_ATTRIBUTE = UserService.class.getName() + ".authenticatedUser";
+    
     // In-memory storage using ConcurrentHashMap for thread safety
     private final Map<String, User> users = new ConcurrentHashMap<>();
-    private final Map<String, String> userTokens = new ConcurrentHashMap<>();
+    
+    // Secondary indexes: normalized username / email -> user ID
+    private final Map<String, String> usernameIndex = new ConcurrentHashMap<>();
+    private final Map<String, String> emailIndex = new ConcurrentHashMap<>();
+    
+    // Metrics: latency of authentication paths and their failures
+    private Timer registerTimer;
+    private Timer loginTimer;
+    private Timer validateTokenTimer;
+    private Counter loginsSucceeded;
+    private Counter loginsFailed;
+    private Counter tokensRejected;
+    
+    @PostConstruct
+    public void registerMetrics() {
+        registerTimer = ServiceMetrics.timer(meterRegistry, "user", "registerUser");
+        loginTimer = ServiceMetrics.timer(meterRegistry, "user", "loginUser");
+        validateTokenTimer = ServiceMetrics.timer(meterRegistry, "user", "validateToken");
+        loginsSucceeded = ServiceMetrics.outcome(meterRegistry, "wallet.logins", "Logins by outcome", "success");
+        loginsFailed = ServiceMetrics.outcome(meterRegistry, "wallet.logins", "Logins by outcome", "failed");
+        tokensRejected = Counter.builder("wallet.auth.rejected")
+                .description("Requests carrying an invalid, expired or revoked token")
+                .register(meterRegistry);
+        Gauge.builder("wallet.users", users, Map::size)
+                .description("Users held in memory")
+                .register(meterRegistry);
+    }
     
     /**
      * Register a new user with mock random ID generation
      * Demonstrates encapsulation and business logic
      */
     public User registerUser(UserRegistrationRequest request) {
-        // Generate random user ID
-        String userId = "USR" + (int)(Math.random() * 10000);
+        long start = System.nanoTime();
+        try {
+            return createUser(request);
+        } finally {
+            ServiceMetrics.record(registerTimer, start);
+        }
+    }
+    
+    private User createUser(UserRegistrationRequest request) {
+        // Generate unique user ID
+        String userId = IdGenerator.generateUserId();
         
-        // Check if username already exists
-        if (isUsernameExists(request.getUsername())) {
+        // Claim username and email atomically so concurrent signups cannot both succeed
+        String usernameKey = normalize(request.getUsername());
+        if (usernameIndex.putIfAbsent(usernameKey, userId) != null) {
             throw new RuntimeException("Username already exists");
         }
+        String emailKey = normalize(request.getEmail());
+        if (emailIndex.putIfAbsent(emailKey, userId) != null) {
+            usernameIndex.remove(usernameKey, userId);
+            throw new RuntimeException("Email already registered");
+        }
         
-        // Create new user
-        User user = new User(userId, request.getUsername(), request.getEmail(), request.getPassword());
-        
-        // Generate mock token
-        String token = "Bearer mock-token-" + (int)(Math.random() * 10000);
-        user.setToken(token);
+        // Create new user, keeping only a salted hash of the password
+        User user = new User(userId, request.getUsername(), request.getEmail(),
+                PasswordHasher.hash(request.getPassword()));
         
         // Store user
         users.put(userId, user);
-        userTokens.put(token, userId);
+        journal.appendUser(user);
+        
+        // Issue a token
+        user.setToken(issueToken(userId));
         
         return user;
     }
@@ -51,6 +124,20 @@ public class UserService {
      * Demonstrates polymorphism and business logic
      */
     public User loginUser(UserLoginRequest request) {
+        long start = System.nanoTime();
+        try {
+            User user = authenticate(request);
+            loginsSucceeded.increment();
+            return user;
+        } catch (RuntimeException e) {
+            loginsFailed.increment();
+            throw e;
+        } finally {
+            ServiceMetrics.record(loginTimer, start);
+        }
+    }
+    
+    private User authenticate(UserLoginRequest request) {
         // Find user by username
         User user = findUserByUsername(request.getUsername());
         
@@ -58,15 +145,13 @@ public class UserService {
             throw new RuntimeException("User not found");
         }
         
-        // Mock password validation (always succeeds for demo)
-        if (!user.getPassword().equals(request.getPassword())) {
+        // Verify the password against the stored salted hash
+        if (!PasswordHasher.matches(request.getPassword(), user.getPasswordHash())) {
             throw new RuntimeException("Invalid credentials");
         }
         
-        // Generate new token
-        String token = "Bearer mock-token-" + (int)(Math.random() * 10000);
-        user.setToken(token);
-        userTokens.put(token, user.getId());
+        // Issue a new token
+        user.setToken(issueToken(user.getId()));
         
         return user;
     }
@@ -84,31 +169,87 @@ public class UserService {
      * Demonstrates encapsulation
      */
     public User findUserByUsername(String username) {
-        return users.values().stream()
-                .filter(user -> user.getUsername().equals(username))
-                .findFirst()
-                .orElse(null);
+        String userId = usernameIndex.get(normalize(username));
+        return userId == null ? null : users.get(userId);
+    }
+    
+    /**
+     * Find user by email
+     * Demonstrates encapsulation
+     */
+    public User findUserByEmail(String email) {
+        String userId = emailIndex.get(normalize(email));
+        return userId == null ? null : users.get(userId);
+    }
+    
+    /**
+     * Validate token and get the user ID it was issued to
+     * In STATELESS mode this trusts the signed claims alone, so any node sharing the
+     * secret accepts the token without holding the user; SESSION tokens are node-local.
+     * Demonstrates business logic
+     */
+    public String authenticate(String token) {
+        // Reuse the result if this request already validated the same token
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            Object cached = request.getAttribute(AUTHENTICATED_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (cached instanceof AuthenticatedUser authenticated && authenticated.token.equals(token)) {
+                return authenticated.userId;
+            }
+        }
+        
+        long start = System.nanoTime();
+        String userId = tokenMode == TokenMode.STATELESS
+                ? statelessTokens.verify(token)
+                : sessionStore.resolve(token);
+        ServiceMetrics.record(validateTokenTimer, start);
+        if (userId == null) {
+            tokensRejected.increment();
+            throw new RuntimeException("Invalid token");
+        }
+        
+        if (request != null) {
+            request.setAttribute(AUTHENTICATED_USER_ATTRIBUTE, new AuthenticatedUser(token, userId),
+                    RequestAttributes.SCOPE_REQUEST);
+        }
+        return userId;
     }
     
     /**
      * Validate token and get user
+     * Needs the user on this node; endpoints that only need the caller's ID use authenticate
      * Demonstrates business logic
      */
     public User validateToken(String token) {
-        String userId = userTokens.get(token);
-        if (userId == null) {
+        User user = users.get(authenticate(token));
+        if (user == null) {
+            throw new RuntimeException("User not found");
+        }
+        return user;
+    }
+    
+    /**
+     * Logout: end the session, or revoke the signed token until it expires
+     * Demonstrates polymorphism
+     */
+    public void logout(String token) {
+        boolean ended = tokenMode == TokenMode.STATELESS
+                ? statelessTokens.revoke(token)
+                : sessionStore.invalidate(token);
+        if (!ended) {
             throw new RuntimeException("Invalid token");
         }
-        return users.get(userId);
+    }
+    
+    private String issueToken(String userId) {
+        return tokenMode == TokenMode.STATELESS ? statelessTokens.issue(userId) : sessionStore.create(userId);
     }
     
     /**
-     * Check if username exists
-     * Demonstrates encapsulation
+     * Index key for usernames and emails, case-insensitive
      */
-    private boolean isUsernameExists(String username) {
-        return users.values().stream()
-                .anyMatch(user -> user.getUsername().equals(username));
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
     }
     
     /**
@@ -118,4 +259,33 @@ public class UserService {
     public List<User> getAllUsers() {
         return new ArrayList<>(users.values());
     }
+    
+    /**
+     * Stream over the live user store without copying it
+     * Demonstrates encapsulation
+     */
+    public Stream<User> streamAllUsers() {
+        return users.values().stream();
+    }
+    
+    /**
+     * Restore a user read back from a snapshot or the journal
+     * Demonstrates encapsulation
+     */
+    public void restoreUser(User user) {
+        // Journals written before passwords were hashed hold them in plain text
+        if (user.getPasswordHash() != null && !PasswordHasher.isHash(user.getPasswordHash())) {
+            user.setPasswordHash(PasswordHasher.hash(user.getPasswordHash()));
+        }
+        users.put(user.getId(), user);
+        usernameIndex.put(normalize(user.getUsername()), user.getId());
+        emailIndex.put(normalize(user.getEmail()), user.getId());
+    }
+    
+    private record AuthenticatedUser(String token, String userId) {
+    }
+    
+    public enum TokenMode {
+        SESSION, STATELESS
+    }
 }
@@ -0,0 +1,88 @@
+package com.walletsystem.service;
+
+import com.walletsystem.model.Transaction;
+import com.walletsystem.model.dto.TransactionSummary;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Running totals of one user's completed transactions, maintained as they are indexed
+ * Daily totals live in a ring of DAYS slots keyed by epoch day: a slot is reset when a
+ * newer day claims it, so the ring always holds the latest DAYS days that saw activity
+ * and reading a summary costs O(DAYS) regardless of history size.
+ */
+final class UserTransactionAggregate {
+
+    static final int DAYS = 30;
+
+    private static final Transaction.TransactionType[] TYPES = Transaction.TransactionType.values();
+
+    private final long[] slotDay = new long[DAYS];
+    private final long[] slotIn = new long[DAYS];
+    private final long[] slotOut = new long[DAYS];
+    private final int[] slotCount = new int[DAYS];
+    private final long[] countByType = new long[TYPES.length];
+    private long moneyIn;
+    private long moneyOut;
+    private long transactionCount;
+
+    UserTransactionAggregate() {
+        Arrays.fill(slotDay, Long.MIN_VALUE);
+    }
+
+    /**
+     * Apply (sign 1) or retract (sign -1) one transaction's effect on this user
+     */
+    synchronized void apply(long epochDay, long in, long out, Transaction.TransactionType type, int sign) {
+        moneyIn += sign * in;
+        moneyOut += sign * out;
+        transactionCount += sign;
+        if (type != null) {
+            countByType[type.ordinal()] += sign;
+        }
+
+        int slot = (int) Math.floorMod(epochDay, (long) DAYS);
+        if (slotDay[slot] != epochDay) {
+            if (slotDay[slot] > epochDay || sign < 0) {
+                // Older than the window this slot now holds
+                return;
+            }
+            slotDay[slot] = epochDay;
+            slotIn[slot] = 0;
+            slotOut[slot] = 0;
+            slotCount[slot] = 0;
+        }
+        slotIn[slot] += sign * in;
+        slotOut[slot] += sign * out;
+        slotCount[slot] += sign;
+    }
+
+    /**
+     * Totals plus one entry per day for the DAYS days ending today, oldest first
+     */
+    synchronized TransactionSummary summarize(String userId, LocalDate today) {
+        Map<Transaction.TransactionType, Long> counts = new EnumMap<>(Transaction.TransactionType.class);
+        for (Transaction.TransactionType type : TYPES) {
+            counts.put(type, countByType[type.ordinal()]);
+        }
+
+        long lastDay = today.toEpochDay();
+        List<TransactionSummary.Day> days = new ArrayList<>(DAYS);
+        for (long day = lastDay - DAYS + 1; day <= lastDay; day++) {
+            int slot = (int) Math.floorMod(day, (long) DAYS);
+            days.add(slotDay[slot] == day
+                    ? new TransactionSummary.Day(LocalDate.ofEpochDay(day), slotIn[slot], slotOut[slot], slotCount[slot])
+                    : new TransactionSummary.Day(LocalDate.ofEpochDay(day), 0, 0, 0));
+        }
+        return new TransactionSummary(userId, moneyIn, moneyOut, transactionCount, counts, days);
+    }
+
+    static TransactionSummary empty(String userId, LocalDate today) {
+        return new UserTransactionAggregate().summarize(userId, today);
+    }
+}
@@ -1,13 +1,33 @@
 package com.walletsystem.service;
 
+import com.walletsystem.exception.InsufficientFundsException;
+import com.walletsystem.exception.InvalidAmountException;
 import com.walletsystem.model.Transaction;
 import com.walletsystem.model.Wallet;
+import com.walletsystem.model.dto.BatchTransferResult;
 import com.walletsystem.model.dto.TransferRequest;
+import com.walletsystem.persistence.TransactionJournal;
+import com.walletsystem.utils.IdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
 /**
  * Wallet Service demonstrating business logic and mock data
@@ -22,9 +42,136 @@ public class WalletService {
     @Autowired
     private TransactionService transactionService;
     
+    @Autowired
+    private TransactionJournal journal;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private StatsService statsService;
+    
+    @Autowired
+    private LiveFeedService liveFeedService;
+    
     // In-memory storage for wallets
     private final Map<String, Wallet> wallets = new ConcurrentHashMap<>();
     
+    // Striped locks guarding wallet mutations, always acquired in stripe order
+    private static final int LOCK_STRIPES = 1024;
+    private final ReentrantLock[] walletLocks = new ReentrantLock[LOCK_STRIPES];
+    
+    // Ledger mode: DIRECT mutates wallets on the request thread, SHARDED hands
+    // every mutation to the single-writer shard that owns the wallet
+    @Value("${wallet.ledger.mode:DIRECT}")
+    private LedgerMode ledgerMode;
+    
+    @Value("${wallet.ledger.shards:0}")
+    private int ledgerShards;
+    
+    @Value("${wallet.ledger.ring-size:4096}")
+    private int ledgerRingSize;
+    
+    @Value("${wallet.ledger.max-batch:256}")
+    private int ledgerMaxBatch;
+    
+    private LedgerSequencer ledgerSequencer;
+    
+    // Asynchronous transfers run on a bounded worker pool; a full queue is rejected, not waited on
+    @Value("${wallet.transfer.async.enabled:true}")
+    private boolean asyncTransfers;
+    
+    @Value("${wallet.transfer.async.threads:0}")
+    private int asyncThreads;
+    
+    @Value("${wallet.transfer.async.queue-capacity:1024}")
+    private int asyncQueueCapacity;
+    
+    private ThreadPoolExecutor transferExecutor;
+    
+    // Metrics: call latency, business outcomes and time spent waiting for contended wallet locks
+    private Timer addFundsTimer;
+    private Timer transferTimer;
+    private Timer transferBatchTimer;
+    private Timer lockWaitTimer;
+    private Counter lockAcquisitions;
+    private Counter depositsCompleted;
+    private Counter depositsInvalid;
+    private Counter depositsFailed;
+    private Counter transfersCompleted;
+    private Counter transfersInsufficientFunds;
+    private Counter transfersFailed;
+    private Counter transfersRejected;
+    
+    public WalletService() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            walletLocks[i] = new ReentrantLock();
+        }
+    }
+    
+    @PostConstruct
+    public void startLedger() {
+        if (ledgerMode == LedgerMode.SHARDED) {
+            int shards = ledgerShards > 0 ? ledgerShards : Runtime.getRuntime().availableProcessors();
+            ledgerSequencer = new LedgerSequencer(shards, ledgerRingSize, ledgerMaxBatch,
+                    this::getWalletBalance, this::journalLedger, journal::awaitDurable);
+        }
+        if (asyncTransfers) {
+            int threads = asyncThreads > 0 ? asyncThreads : Runtime.getRuntime().availableProcessors() * 2;
+            AtomicInteger workerIds = new AtomicInteger();
+            transferExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(asyncQueueCapacity), r -> {
+                        Thread thread = new Thread(r, "transfer-worker-" + workerIds.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.AbortPolicy());
+        }
+    }
+    
+    @PostConstruct
+    public void registerMetrics() {
+        addFundsTimer = ServiceMetrics.timer(meterRegistry, "wallet", "addFunds");
+        transferTimer = ServiceMetrics.timer(meterRegistry, "wallet", "transferFunds");
+        transferBatchTimer = ServiceMetrics.timer(meterRegistry, "wallet", "transferBatch");
+        lockWaitTimer = ServiceMetrics
+                .histogramTimer("wallet.ledger.lock.wait", "Time spent waiting for a wallet lock held by another thread")
+                .register(meterRegistry);
+        lockAcquisitions = Counter.builder("wallet.ledger.lock.acquisitions")
+                .description("Wallet lock acquisitions, contended or not")
+                .register(meterRegistry);
+        
+        depositsCompleted = ServiceMetrics.outcome(meterRegistry, "wallet.deposits", "Deposits by outcome", "completed");
+        depositsInvalid = ServiceMetrics.outcome(meterRegistry, "wallet.deposits", "Deposits by outcome", "invalid_amount");
+        depositsFailed = ServiceMetrics.outcome(meterRegistry, "wallet.deposits", "Deposits by outcome", "failed");
+        transfersCompleted = ServiceMetrics.outcome(meterRegistry, "wallet.transfers", "Transfers by outcome", "completed");
+        transfersInsufficientFunds = ServiceMetrics.outcome(meterRegistry, "wallet.transfers", "Transfers by outcome",
+                "insufficient_funds");
+        transfersFailed = ServiceMetrics.outcome(meterRegistry, "wallet.transfers", "Transfers by outcome", "failed");
+        transfersRejected = ServiceMetrics.outcome(meterRegistry, "wallet.transfers", "Transfers by outcome", "rejected");
+        
+        Gauge.builder("wallet.wallets", wallets, Map::size)
+                .description("Wallets held in memory")
+                .register(meterRegistry);
+        Gauge.builder("wallet.transfer.pending", this, WalletService::getPendingTransfers)
+                .description("Asynchronous transfers accepted but not yet started")
+                .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    public void stopLedger() {
+        if (transferExecutor != null) {
+            transferExecutor.shutdown();
+            try {
+                transferExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (ledgerSequencer != null) {
+            ledgerSequencer.shutdown();
+        }
+    }
+    
     /**
      * Get wallet balance for a user
      * Demonstrates encapsulation and business logic
@@ -40,28 +187,69 @@ public class WalletService {
         return wallet;
     }
     
+    /**
+     * Consistent copy of a user's wallet for callers outside the ledger
+     * Reading it takes no lock, so balance reads never wait on transfers
+     * Demonstrates encapsulation
+     */
+    public Wallet getWalletSnapshot(String userId) {
+        return getWalletBalance(userId).copy();
+    }
+    
     /**
      * Add funds to wallet
      * Demonstrates polymorphism and business logic
      */
-    public Wallet addFunds(String userId, double amount) {
+    public Wallet addFunds(String userId, long amount) {
+        long start = System.nanoTime();
+        try {
+            Wallet wallet = applyDeposit(userId, amount);
+            depositsCompleted.increment();
+            statsService.recordDeposit();
+            liveFeedService.publishBalance(wallet);
+            return wallet;
+        } catch (RuntimeException e) {
+            statsService.recordFailures(1);
+            (e instanceof InvalidAmountException ? depositsInvalid : depositsFailed).increment();
+            throw e;
+        } finally {
+            ServiceMetrics.record(addFundsTimer, start);
+        }
+    }
+    
+    private Wallet applyDeposit(String userId, long amount) {
         Wallet wallet = getWalletBalance(userId);
         
         if (wallet.canDeposit(amount)) {
-            wallet.addFunds(amount);
-            
             // Create transaction record
             Transaction transaction = new Transaction(
-                "TXN" + (int)(Math.random() * 10000),
+                IdGenerator.generateTransactionId(),
                 "SYSTEM",
                 userId,
                 amount,
                 Transaction.TransactionType.CREDIT,
                 "Funds added to wallet"
             );
-            transactionService.addTransaction(transaction);
+            
+            if (ledgerMode == LedgerMode.SHARDED) {
+                ledgerSequencer.credit(userId, amount, transaction);
+            } else {
+                ReentrantLock lock = lockFor(userId);
+                long position;
+                lockWallet(lock);
+                try {
+                    Map<Wallet, Long> original = new IdentityHashMap<>();
+                    original.put(wallet, wallet.getBalance());
+                    wallet.addFunds(amount);
+                    position = journalDirect(original, List.of(transaction));
+                } finally {
+                    lock.unlock();
+                }
+                journal.awaitDurable(position);
+            }
+            transactionService.commitTransaction(transaction);
         } else {
-            throw new RuntimeException("Invalid amount for deposit");
+            throw new InvalidAmountException("Invalid amount for deposit");
         }
         
         return wallet;
@@ -72,30 +260,316 @@ public class WalletService {
      * Demonstrates polymorphism and business logic
      */
     public Transaction transferFunds(TransferRequest request) {
+        long start = System.nanoTime();
+        try {
+            Transaction transaction = applyTransfer(request);
+            transfersCompleted.increment();
+            statsService.recordTransfers(1);
+            liveFeedService.publishBalance(getWalletBalance(request.getSenderId()));
+            liveFeedService.publishBalance(getWalletBalance(request.getReceiverId()));
+            return transaction;
+        } catch (RuntimeException e) {
+            statsService.recordFailures(1);
+            (e instanceof InsufficientFundsException ? transfersInsufficientFunds : transfersFailed).increment();
+            throw e;
+        } finally {
+            ServiceMetrics.record(transferTimer, start);
+        }
+    }
+    
+    private Transaction applyTransfer(TransferRequest request) {
         Wallet senderWallet = getWalletBalance(request.getSenderId());
         Wallet receiverWallet = getWalletBalance(request.getReceiverId());
         
-        // Check if sender has sufficient funds
-        if (!senderWallet.canWithdraw(request.getAmount())) {
-            throw new RuntimeException("Insufficient funds");
+        if (ledgerMode == LedgerMode.SHARDED) {
+            // The shard journals the transaction record together with both balances
+            Transaction transaction = transferTransaction(request);
+            // Check if sender has sufficient funds on the owning shard
+            if (!ledgerSequencer.transfer(request.getSenderId(), request.getReceiverId(),
+                    request.getAmount(), transaction)) {
+                throw new InsufficientFundsException();
+            }
+            transactionService.commitTransaction(transaction);
+            return transaction;
         }
         
-        // Perform transfer
-        if (senderWallet.transferTo(receiverWallet, request.getAmount())) {
-            // Create transaction record
-            Transaction transaction = new Transaction(
-                "TXN" + (int)(Math.random() * 10000),
-                request.getSenderId(),
-                request.getReceiverId(),
-                request.getAmount(),
-                Transaction.TransactionType.TRANSFER,
-                request.getDescription() != null ? request.getDescription() : "Fund transfer"
-            );
+        // Create transaction record
+        Transaction transaction = transferTransaction(request);
+        long position = transferDirect(senderWallet, receiverWallet, request.getAmount(), transaction);
+        // Wait for the fsync policy only after the wallet locks are released
+        journal.awaitDurable(position);
+        transactionService.commitTransaction(transaction);
+        return transaction;
+    }
+    
+    private static Transaction transferTransaction(TransferRequest request) {
+        return new Transaction(
+            IdGenerator.generateTransactionId(),
+            request.getSenderId(),
+            request.getReceiverId(),
+            request.getAmount(),
+            Transaction.TransactionType.TRANSFER,
+            request.getDescription() != null ? request.getDescription() : "Fund transfer"
+        );
+    }
+    
+    /**
+     * Submit a transfer without blocking the caller
+     * Throws RejectedExecutionException when the submission queue is full,
+     * so callers can shed load instead of queueing without bound
+     * Demonstrates polymorphism and business logic
+     */
+    public CompletableFuture<Transaction> transferFundsAsync(TransferRequest request) {
+        if (transferExecutor == null) {
+            try {
+                return CompletableFuture.completedFuture(transferFunds(request));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> transferFunds(request), transferExecutor);
+        } catch (RejectedExecutionException e) {
+            transfersRejected.increment();
+            throw e;
+        }
+    }
+    
+    /**
+     * Transfers accepted but not yet started
+     */
+    public int getPendingTransfers() {
+        return transferExecutor == null ? 0 : transferExecutor.getQueue().size();
+    }
+    
+    /**
+     * Apply a batch of transfers in request order with per-item results
+     * In DIRECT mode every wallet in the batch is resolved once, the stripes they map
+     * to are locked once in stripe order, all transfers are applied in one pass and the
+     * touched wallets and new transactions are each journaled as a single record.
+     * With atomic set, the first failure restores every touched balance and fails the batch.
+     * Demonstrates polymorphism and business logic
+     */
+    public BatchTransferResult transferBatch(List<TransferRequest> requests, boolean atomic) {
+        long start = System.nanoTime();
+        try {
+            BatchTransferResult result = applyBatch(requests, atomic);
+            statsService.recordTransfers(result.getSucceeded());
+            statsService.recordFailures(result.getFailed());
+            publishBatchBalances(requests, result);
+            return result;
+        } finally {
+            ServiceMetrics.record(transferBatchTimer, start);
+        }
+    }
+    
+    /**
+     * Push the final balance of every wallet a batch changed, once per wallet
+     */
+    private void publishBatchBalances(List<TransferRequest> requests, BatchTransferResult result) {
+        if (liveFeedService.getSubscriberCount() == 0 || result.getSucceeded() == 0) {
+            return;
+        }
+        Set<String> touched = new LinkedHashSet<>();
+        for (BatchTransferResult.Item item : result.getResults()) {
+            if (item.isSuccess()) {
+                TransferRequest request = requests.get(item.getIndex());
+                touched.add(request.getSenderId());
+                touched.add(request.getReceiverId());
+            }
+        }
+        for (String userId : touched) {
+            liveFeedService.publishBalance(getWalletBalance(userId));
+        }
+    }
+    
+    private BatchTransferResult applyBatch(List<TransferRequest> requests, boolean atomic) {
+        if (ledgerMode == LedgerMode.SHARDED) {
+            return transferBatchSharded(requests, atomic);
+        }
+        
+        // Resolve each wallet once and collect the stripes the batch touches
+        Map<String, Wallet> batchWallets = new HashMap<>();
+        BitSet stripes = new BitSet(LOCK_STRIPES);
+        for (TransferRequest request : requests) {
+            for (String userId : new String[] {request.getSenderId(), request.getReceiverId()}) {
+                if (!batchWallets.containsKey(userId)) {
+                    batchWallets.put(userId, getWalletBalance(userId));
+                    stripes.set(stripeOf(userId));
+                }
+            }
+        }
+        
+        List<BatchTransferResult.Item> results = new ArrayList<>(requests.size());
+        List<Transaction> created = new ArrayList<>(requests.size());
+        for (int stripe = stripes.nextSetBit(0); stripe >= 0; stripe = stripes.nextSetBit(stripe + 1)) {
+            lockWallet(walletLocks[stripe]);
+        }
+        long position;
+        try {
+            // Balances before the batch, for atomic rollback and for a failed journal write
+            Map<Wallet, Long> original = new IdentityHashMap<>();
             
-            transactionService.addTransaction(transaction);
-            return transaction;
-        } else {
-            throw new RuntimeException("Transfer failed");
+            for (int i = 0; i < requests.size(); i++) {
+                TransferRequest request = requests.get(i);
+                Wallet senderWallet = batchWallets.get(request.getSenderId());
+                Wallet receiverWallet = batchWallets.get(request.getReceiverId());
+                
+                String error = null;
+                if (request.getAmount() <= 0) {
+                    error = "Amount must be positive";
+                } else if (!senderWallet.canWithdraw(request.getAmount())) {
+                    error = "Insufficient funds";
+                } else {
+                    original.putIfAbsent(senderWallet, senderWallet.getBalance());
+                    original.putIfAbsent(receiverWallet, receiverWallet.getBalance());
+                    if (!senderWallet.transferTo(receiverWallet, request.getAmount())) {
+                        error = "Transfer failed";
+                    }
+                }
+                
+                if (error != null) {
+                    if (atomic) {
+                        original.forEach(Wallet::setBalance);
+                        return abortedBatch(requests.size(), i, error);
+                    }
+                    results.add(BatchTransferResult.Item.failure(i, error));
+                    continue;
+                }
+                
+                Transaction transaction = transferTransaction(request);
+                created.add(transaction);
+                results.add(BatchTransferResult.Item.success(i, transaction.getTransactionId()));
+            }
+            
+            // Wallets whose only transfer failed are unchanged, so rewriting them is harmless
+            position = created.isEmpty() ? 0 : journalDirect(original, created);
+        } finally {
+            for (int stripe = stripes.nextSetBit(0); stripe >= 0; stripe = stripes.nextSetBit(stripe + 1)) {
+                walletLocks[stripe].unlock();
+            }
+        }
+        
+        journal.awaitDurable(position);
+        for (Transaction transaction : created) {
+            transactionService.commitTransaction(transaction);
+        }
+        return new BatchTransferResult(atomic, results);
+    }
+    
+    /**
+     * Batch transfers in SHARDED mode go through the shard owners one at a time
+     * Shards cannot roll each other back, so atomic batches are not supported here
+     */
+    private BatchTransferResult transferBatchSharded(List<TransferRequest> requests, boolean atomic) {
+        if (atomic) {
+            throw new RuntimeException("Atomic batches require the DIRECT ledger mode");
+        }
+        
+        List<BatchTransferResult.Item> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest request = requests.get(i);
+            getWalletBalance(request.getSenderId());
+            getWalletBalance(request.getReceiverId());
+            Transaction transaction = transferTransaction(request);
+            if (request.getAmount() <= 0) {
+                results.add(BatchTransferResult.Item.failure(i, "Amount must be positive"));
+            } else if (!ledgerSequencer.transfer(request.getSenderId(), request.getReceiverId(),
+                    request.getAmount(), transaction)) {
+                results.add(BatchTransferResult.Item.failure(i, "Insufficient funds"));
+            } else {
+                transactionService.commitTransaction(transaction);
+                results.add(BatchTransferResult.Item.success(i, transaction.getTransactionId()));
+            }
+        }
+        
+        return new BatchTransferResult(false, results);
+    }
+    
+    /**
+     * Result of an atomic batch rolled back at the failed item
+     */
+    private static BatchTransferResult abortedBatch(int size, int failedIndex, String error) {
+        List<BatchTransferResult.Item> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            results.add(BatchTransferResult.Item.failure(i,
+                    i == failedIndex ? error : "Batch rolled back: transfer " + failedIndex + " failed"));
+        }
+        return new BatchTransferResult(true, results);
+    }
+    
+    /**
+     * Transfer on the calling thread under the striped wallet locks
+     * Both wallets and the transaction are journaled as one frame before the locks are
+     * released; returns the frame's position for the caller to await once unlocked
+     * Demonstrates encapsulation
+     */
+    private long transferDirect(Wallet senderWallet, Wallet receiverWallet, long amount, Transaction transaction) {
+        // Lock both wallets in global stripe order so transfers never deadlock
+        int senderStripe = stripeOf(senderWallet.getUserId());
+        int receiverStripe = stripeOf(receiverWallet.getUserId());
+        ReentrantLock first = walletLocks[Math.min(senderStripe, receiverStripe)];
+        ReentrantLock second = walletLocks[Math.max(senderStripe, receiverStripe)];
+        
+        lockWallet(first);
+        try {
+            if (second != first) {
+                lockWallet(second);
+            }
+            try {
+                // Check if sender has sufficient funds
+                if (!senderWallet.canWithdraw(amount)) {
+                    throw new InsufficientFundsException();
+                }
+                
+                Map<Wallet, Long> original = new IdentityHashMap<>();
+                original.put(senderWallet, senderWallet.getBalance());
+                original.put(receiverWallet, receiverWallet.getBalance());
+                
+                // Perform transfer
+                if (!senderWallet.transferTo(receiverWallet, amount)) {
+                    throw new RuntimeException("Transfer failed");
+                }
+                return journalDirect(original, List.of(transaction));
+            } finally {
+                if (second != first) {
+                    second.unlock();
+                }
+            }
+        } finally {
+            first.unlock();
+        }
+    }
+    
+    /**
+     * Journal wallet states with the transactions that produced them as one frame
+     * The transactions are staged first, so a snapshot racing the write still holds them;
+     * if the write fails they are marked failed and the caller restores the balances.
+     * Does not wait for durability; see TransactionJournal.awaitDurable
+     */
+    private long journalLedger(Collection<Wallet> changed, List<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            transactionService.stageTransaction(transaction);
+        }
+        try {
+            return journal.appendLedger(changed, transactions);
+        } catch (RuntimeException e) {
+            for (Transaction transaction : transactions) {
+                transactionService.abortTransaction(transaction);
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Journal wallets changed under their locks, restoring the balances if the write fails
+     */
+    private long journalDirect(Map<Wallet, Long> original, List<Transaction> transactions) {
+        try {
+            return journalLedger(original.keySet(), transactions);
+        } catch (RuntimeException e) {
+            original.forEach(Wallet::setBalance);
+            throw e;
         }
     }
     
@@ -103,22 +577,116 @@ public class WalletService {
      * Create new wallet with random balance
      * Demonstrates encapsulation and inheritance
      */
+    /**
+     * Create and journal a wallet unless another thread got there first
+     * The journal write (and its fsync) happens outside the map, so it never holds a map bin
+     * lock; the frame carries the wallet's state at write time, and replay keeps the newest
+     * version, so a transfer journaled before it is not undone.
+     */
     private Wallet createNewWallet(String userId) {
         // Generate random balance between 1000 and 10000
-        double randomBalance = 1000 + (Math.random() * 9000);
+        long randomBalance = IdGenerator.generateRandomBalance(1000, 10000);
         
-        String walletId = "WLT" + (int)(Math.random() * 10000);
+        String walletId = IdGenerator.generateWalletId();
         Wallet wallet = new Wallet(walletId, userId, randomBalance, "Main Wallet");
-        
-        wallets.put(userId, wallet);
+        Wallet existing = wallets.putIfAbsent(userId, wallet);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            journal.appendWallets(wallet);
+        } catch (RuntimeException e) {
+            wallets.remove(userId, wallet);
+            throw e;
+        }
         return wallet;
     }
     
     /**
-     * Get all wallets (for admin purposes)
+     * Restore a wallet state read back from the journal
+     * Demonstrates encapsulation
+     */
+    public void restoreWallet(Wallet wallet) {
+        // Never replace a state with an older one; unversioned legacy entries are all version 0,
+        // so they still apply in journal order
+        wallets.merge(wallet.getUserId(), wallet, (current, restored) ->
+                restored.getVersion() >= current.getVersion() ? restored : current);
+    }
+    
+    /**
+     * Credit the receivers of cross-shard transfers that recovery found still PENDING
+     * Their debits were journaled before the node stopped; each credit is journaled with
+     * the COMPLETED record, as the receiver's shard would have. Runs during startup recovery
+     */
+    public int settleRestoredTransfers() {
+        List<Transaction> inFlight = transactionService.takeRestoredInFlight();
+        for (Transaction transaction : inFlight) {
+            Wallet receiver = getWalletBalance(transaction.getReceiverId());
+            ReentrantLock lock = lockFor(transaction.getReceiverId());
+            long position;
+            lockWallet(lock);
+            try {
+                Map<Wallet, Long> original = new IdentityHashMap<>();
+                original.put(receiver, receiver.getBalance());
+                receiver.addFunds(transaction.getAmount());
+                position = journalDirect(original,
+                        List.of(transaction.withStatus(Transaction.TransactionStatus.COMPLETED)));
+            } finally {
+                lock.unlock();
+            }
+            journal.awaitDurable(position);
+        }
+        return inFlight.size();
+    }
+    
+    /**
+     * Resolve the lock stripe for a user's wallet
+     * Demonstrates encapsulation
+     */
+    private int stripeOf(String userId) {
+        int h = userId.hashCode();
+        return (h ^ (h >>> 16)) & (LOCK_STRIPES - 1);
+    }
+    
+    private ReentrantLock lockFor(String userId) {
+        return walletLocks[stripeOf(userId)];
+    }
+    
+    /**
+     * Acquire a wallet lock, timing the wait only when another thread holds it
+     */
+    private void lockWallet(ReentrantLock lock) {
+        lockAcquisitions.increment();
+        if (lock.tryLock()) {
+            return;
+        }
+        long start = System.nanoTime();
+        lock.lock();
+        ServiceMetrics.record(lockWaitTimer, start);
+    }
+    
+    /**
+     * Get all wallets (for admin purposes), as consistent copies
      * Demonstrates encapsulation
      */
     public List<Wallet> getAllWallets() {
-        return new ArrayList<>(wallets.values());
+        List<Wallet> copies = new ArrayList<>(wallets.size());
+        for (Wallet wallet : wallets.values()) {
+            copies.add(wallet.copy());
+        }
+        return copies;
+    }
+    
+    /**
+     * Stream over the live wallet store without copying it
+     * Demonstrates encapsulation
+     */
+    public Stream<Wallet> streamAllWallets() {
+        return wallets.values().stream();
+    }
+    
+    // Enum for the wallet mutation path
+    public enum LedgerMode {
+        DIRECT, SHARDED
     }
 }
@@ -0,0 +1,32 @@
+package com.walletsystem.utils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Conversions between LocalDateTime and epoch microseconds (UTC)
+ * Used wherever timestamps are stored or compared as primitive longs
+ */
+public final class EpochMicros {
+
+    // Marker for a missing timestamp
+    public static final long NONE = Long.MIN_VALUE;
+
+    private EpochMicros() {
+    }
+
+    public static long of(LocalDateTime time) {
+        if (time == null) {
+            return NONE;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    public static LocalDateTime toDateTime(long micros) {
+        if (micros == NONE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
@@ -1,48 +1,179 @@
 package com.walletsystem.utils;
 
+import com.walletsystem.model.Money;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
- * Utility class for generating random IDs
+ * Utility class for generating unique, time-sortable IDs
+ * An ID is a 64-bit Snowflake value: 41 bits of milliseconds since 2024-01-01 UTC,
+ * 10 bits of node ID and a 12-bit sequence within the millisecond. String IDs are a
+ * three-letter prefix plus 13 Crockford base32 digits, so they sort like the numbers.
  * Demonstrates encapsulation and utility methods
  */
 public class IdGenerator {
-    
+
+    public static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    public static final int NODE_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int PREFIX_LENGTH = 3;
+    private static final int ENCODED_LENGTH = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = (byte) i;
+            DECODE[Character.toLowerCase(ALPHABET[i])] = (byte) i;
+        }
+    }
+
+    // Last ID handed out; every new ID is a CAS on this one word
+    private static final AtomicLong lastId = new AtomicLong();
+    private static volatile long nodeBits;
+    private static final SecureRandom TOKEN_RANDOM = new SecureRandom();
+
+    /**
+     * Set this node's ID (0..1023); nodes sharing a store must use distinct IDs
+     */
+    public static void setNodeId(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID);
+        }
+        nodeBits = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    /**
+     * Next 64-bit ID, strictly increasing on this node
+     * Lock-free: the timestamp and sequence advance together in one CAS. When the
+     * sequence runs out within a millisecond, or the clock steps backwards, the ID
+     * borrows the next millisecond rather than blocking or repeating.
+     */
+    public static long nextId() {
+        long node = nodeBits;
+        while (true) {
+            long last = lastId.get();
+            long lastMillis = last >>> TIMESTAMP_SHIFT;
+            long now = System.currentTimeMillis() - EPOCH_MILLIS;
+            long next;
+            if (now > lastMillis) {
+                next = (now << TIMESTAMP_SHIFT) | node;
+            } else if ((last & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = (lastMillis << TIMESTAMP_SHIFT) | node | ((last & SEQUENCE_MASK) + 1);
+            } else {
+                next = ((lastMillis + 1) << TIMESTAMP_SHIFT) | node;
+            }
+            if (lastId.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * ID for an explicit time, node and sequence, for generators that must be reproducible
+     * Unique as long as no two calls share all three values
+     */
+    public static long compose(long epochMillis, int nodeId, int sequence) {
+        return ((epochMillis - EPOCH_MILLIS) << TIMESTAMP_SHIFT) | ((long) nodeId << SEQUENCE_BITS)
+                | (sequence & SEQUENCE_MASK);
+    }
+
     /**
-     * Generate random user ID
+     * Generate unique user ID
      * Demonstrates encapsulation
      */
     public static String generateUserId() {
-        return "USR" + (int)(Math.random() * 10000);
+        return format("USR", nextId());
     }
-    
+
     /**
-     * Generate random transaction ID
+     * Generate unique transaction ID
      * Demonstrates encapsulation
      */
     public static String generateTransactionId() {
-        return "TXN" + (int)(Math.random() * 10000);
+        return format("TXN", nextId());
     }
-    
+
     /**
-     * Generate random wallet ID
+     * Generate unique wallet ID
      * Demonstrates encapsulation
      */
     public static String generateWalletId() {
-        return "WLT" + (int)(Math.random() * 10000);
+        return format("WLT", nextId());
     }
-    
+
     /**
-     * Generate random token
+     * Generate unguessable session token (256 random bits)
      * Demonstrates encapsulation
      */
     public static String generateToken() {
-        return "Bearer mock-token-" + (int)(Math.random() * 10000);
+        byte[] bytes = new byte[32];
+        TOKEN_RANDOM.nextBytes(bytes);
+        return "Bearer " + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Prefix plus the fixed-width base32 form of an ID
+     */
+    public static String format(String prefix, long id) {
+        return prefix + encode(id);
+    }
+
+    /**
+     * Fixed-width Crockford base32 encoding; lexicographic order matches numeric order
+     */
+    public static String encode(long id) {
+        char[] chars = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Numeric form of a generated string ID, for use as a primitive key
+     * Returns -1 for IDs this generator did not produce (legacy or mock IDs)
+     */
+    public static long parse(String id) {
+        if (id == null || id.length() != PREFIX_LENGTH + ENCODED_LENGTH) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = PREFIX_LENGTH; i < id.length(); i++) {
+            char c = id.charAt(i);
+            int digit = c < DECODE.length ? DECODE[c] : -1;
+            // The first digit only carries the top 4 bits
+            if (digit < 0 || (i == PREFIX_LENGTH && digit > 15)) {
+                return -1;
+            }
+            value = (value << 5) | digit;
+        }
+        // Generated IDs are never negative
+        return value < 0 ? -1 : value;
     }
-    
+
+    /**
+     * Creation time of an ID, in epoch milliseconds
+     */
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH_MILLIS;
+    }
+
     /**
-     * Generate random balance between min and max
+     * Generate random balance between min and max, in minor units
      * Demonstrates encapsulation
      */
-    public static double generateRandomBalance(double min, double max) {
-        return min + (Math.random() * (max - min));
+    public static long generateRandomBalance(double min, double max) {
+        return Money.ofMajor(ThreadLocalRandom.current().nextDouble(min, max));
     }
 }
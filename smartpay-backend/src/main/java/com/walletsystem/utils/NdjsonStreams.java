@@ -0,0 +1,69 @@
+package com.walletsystem.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.walletsystem.model.dto.ApiResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Utility for streaming collections as newline-delimited JSON
+ * Items are serialized one at a time straight to the response, so memory use
+ * stays constant; a slow client simply blocks the writer (back-pressure)
+ */
+public final class NdjsonStreams {
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    // Items written between explicit flushes (each flush sends a chunk)
+    private static final int FLUSH_EVERY = 256;
+    private static final SerializedString NEWLINE = new SerializedString("\n");
+
+    private NdjsonStreams() {
+    }
+
+    /**
+     * Build a chunked NDJSON response; the source is opened only when the body is written
+     */
+    public static <T> ResponseEntity<StreamingResponseBody> response(ObjectMapper mapper, Supplier<Stream<T>> source) {
+        StreamingResponseBody body = out -> {
+            try (Stream<T> items = source.get();
+                 JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(NEWLINE);
+                Iterator<T> iterator = items.iterator();
+                int pending = 0;
+                boolean any = false;
+                while (iterator.hasNext()) {
+                    generator.writeObject(iterator.next());
+                    any = true;
+                    if (++pending == FLUSH_EVERY) {
+                        generator.flush();
+                        pending = 0;
+                    }
+                }
+                if (any) {
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+            }
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Build an ApiResponse JSON error for a stream endpoint that rejects its request before streaming
+     */
+    public static ResponseEntity<StreamingResponseBody> error(ObjectMapper mapper, HttpStatus status, String message) {
+        ApiResponse<Void> error = ApiResponse.error(message, status.value());
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON)
+                .body(out -> mapper.writeValue(out, error));
+    }
+}
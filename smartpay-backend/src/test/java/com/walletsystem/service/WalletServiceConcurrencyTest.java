@@ -0,0 +1,134 @@
+package com.walletsystem.service;
+
+import com.walletsystem.exception.InsufficientFundsException;
+import com.walletsystem.model.Wallet;
+import com.walletsystem.model.dto.BatchTransferResult;
+import com.walletsystem.model.dto.TransferRequest;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many threads transfer between a small set of wallets at once; money must be
+ * neither created nor lost, and no wallet may go negative, in either ledger mode
+ * Throughput and its scaling on disjoint wallet pairs are measured by TransferBenchmark
+ * (UNCONTENDED at -t 1 against -t N), not here, where timing would make the suite flaky.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "wallet.journal.enabled=false",
+        "wallet.snapshot.enabled=false",
+        "wallet.transfer.async.enabled=false"
+})
+class WalletServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int WALLETS = 32;
+    private static final int TRANSFERS_PER_THREAD = 5_000;
+
+    @Nested
+    @TestPropertySource(properties = "wallet.ledger.mode=DIRECT")
+    class Direct {
+
+        @Autowired
+        private WalletService walletService;
+
+        @Test
+        void concurrentTransfersKeepTotalBalance() throws Exception {
+            runTransfers(walletService, "direct");
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = {"wallet.ledger.mode=SHARDED", "wallet.ledger.shards=4"})
+    class Sharded {
+
+        @Autowired
+        private WalletService walletService;
+
+        @Test
+        void concurrentTransfersKeepTotalBalance() throws Exception {
+            runTransfers(walletService, "sharded");
+        }
+    }
+
+    private static void runTransfers(WalletService walletService, String prefix) throws Exception {
+        List<String> userIds = new ArrayList<>(WALLETS);
+        for (int i = 0; i < WALLETS; i++) {
+            String userId = prefix + "-user-" + i;
+            walletService.getWalletBalance(userId);
+            userIds.add(userId);
+        }
+        long before = totalBalance(walletService, userIds);
+
+        AtomicLong completed = new AtomicLong();
+        AtomicLong declined = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            SplittableRandom random = new SplittableRandom(42 + t);
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    String sender = userIds.get(random.nextInt(WALLETS));
+                    String receiver = userIds.get(random.nextInt(WALLETS));
+                    long amount = 1 + random.nextLong(50_000);
+                    if (i % 50 == 0) {
+                        // Mix in small non-atomic batches, which take all their wallets' locks at once
+                        List<TransferRequest> batch = List.of(
+                                new TransferRequest(sender, receiver, amount, null),
+                                new TransferRequest(receiver, sender, amount / 2 + 1, null));
+                        BatchTransferResult result = walletService.transferBatch(batch, false);
+                        completed.addAndGet(result.getSucceeded());
+                        declined.addAndGet(result.getFailed());
+                        continue;
+                    }
+                    try {
+                        walletService.transferFunds(new TransferRequest(sender, receiver, amount, null));
+                        completed.incrementAndGet();
+                    } catch (InsufficientFundsException e) {
+                        declined.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        assertThat(totalBalance(walletService, userIds)).isEqualTo(before);
+        for (String userId : userIds) {
+            assertThat(walletService.getWalletBalance(userId).getBalance()).isNotNegative();
+        }
+        assertThat(completed.get()).isPositive();
+        assertThat(completed.get() + declined.get()).isEqualTo((long) THREADS * TRANSFERS_PER_THREAD
+                + (long) THREADS * (TRANSFERS_PER_THREAD / 50));
+    }
+
+    private static long totalBalance(WalletService walletService, List<String> userIds) {
+        long total = 0;
+        for (String userId : userIds) {
+            Wallet wallet = walletService.getWalletBalance(userId);
+            total += wallet.getBalance();
+        }
+        return total;
+    }
+}